@@ -0,0 +1,212 @@
+/*
+ * opsu! - an open-source osu! client
+ * Copyright (C) 2014, 2015 Jeffrey Han
+ *
+ * opsu! is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * opsu! is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with opsu!.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package itdelatrisu.opsu;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.newdawn.slick.util.Log;
+
+/**
+ * Background watcher for the beatmap and OSZ archive directories.
+ * <p>
+ * New OSZ archives are unpacked, and new or modified beatmap directories are
+ * parsed in a background thread.  The resulting song groups are queued until
+ * they are added to the song list with {@link #getParsedSongGroups()}.
+ * <p>
+ * New beatmap directories are watched as well, so that a directory is only
+ * parsed once files stop being written into it.
+ */
+public class BeatmapWatcher {
+	/** Time, in milliseconds, to wait for events to settle before processing them. */
+	private static final int DEBOUNCE_TIME = 2000;
+
+	/** Watcher thread. */
+	private static volatile Thread thread;
+
+	/** Song groups that were parsed but not yet added to the song list. */
+	private static List<ArrayList<OsuFile>> parsedSongGroups = new ArrayList<ArrayList<OsuFile>>();
+
+	// This class should not be instantiated.
+	private BeatmapWatcher() {}
+
+	/**
+	 * Starts watching the beatmap and OSZ archive directories, if not already started.
+	 */
+	public static void start() {
+		if (thread != null)
+			return;
+
+		thread = new Thread("BeatmapWatcher") {
+			@Override
+			public void run() { watch(Options.getBeatmapDir(), Options.getOSZDir()); }
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops watching the directories.
+	 */
+	public static void stop() {
+		if (thread == null)
+			return;
+
+		thread.interrupt();
+		thread = null;
+	}
+
+	/**
+	 * Returns whether or not any parsed song groups are waiting to be added to the song list.
+	 */
+	public static synchronized boolean hasParsedSongGroups() { return !parsedSongGroups.isEmpty(); }
+
+	/**
+	 * Returns and clears all parsed song groups waiting to be added to the song list.
+	 * <p>
+	 * Song groups may belong to directories already in the list, in which
+	 * case the existing group should be replaced.
+	 * @return the list of song groups, in the order they were parsed
+	 */
+	public static synchronized List<ArrayList<OsuFile>> getParsedSongGroups() {
+		List<ArrayList<OsuFile>> groups = parsedSongGroups;
+		parsedSongGroups = new ArrayList<ArrayList<OsuFile>>();
+		return groups;
+	}
+
+	/**
+	 * Adds parsed song groups to the queue.
+	 * @param groups the song groups
+	 */
+	private static synchronized void addParsedSongGroups(List<ArrayList<OsuFile>> groups) {
+		parsedSongGroups.addAll(groups);
+	}
+
+	/**
+	 * Watches the directories until interrupted.
+	 * @param beatmapDir the beatmap directory
+	 * @param oszDir the OSZ archive directory
+	 */
+	private static void watch(File beatmapDir, File oszDir) {
+		try (WatchService service = FileSystems.getDefault().newWatchService()) {
+			Path beatmapPath = beatmapDir.toPath(), oszPath = oszDir.toPath();
+			beatmapPath.register(service, ENTRY_CREATE, ENTRY_MODIFY);
+			if (!oszPath.equals(beatmapPath))
+				oszPath.register(service, ENTRY_CREATE, ENTRY_MODIFY);
+
+			// wait for an event, then collect all events until none arrive for the debounce time
+			HashSet<String> changedDirs = new HashSet<String>();
+			boolean oszChanged = false;
+			while (Thread.currentThread() == thread) {
+				WatchKey key = (changedDirs.isEmpty() && !oszChanged) ?
+						service.take() : service.poll(DEBOUNCE_TIME, TimeUnit.MILLISECONDS);
+				if (key == null) {
+					update(beatmapDir, oszDir, changedDirs, oszChanged);
+					changedDirs.clear();
+					oszChanged = false;
+					continue;
+				}
+
+				Path dir = (Path) key.watchable();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == OVERFLOW) {  // events lost: check everything
+						oszChanged = true;
+						File[] dirs = beatmapDir.listFiles();
+						if (dirs != null) {
+							for (File d : dirs)
+								changedDirs.add(d.getName());
+						}
+						continue;
+					}
+
+					Path path = (Path) event.context();
+					String name = path.getFileName().toString();
+					if (dir.equals(oszPath) && name.toLowerCase().endsWith(".osz"))
+						oszChanged = true;
+					if (dir.equals(beatmapPath)) {
+						changedDirs.add(name);
+
+						// watch new directories for files still being written
+						if (event.kind() == ENTRY_CREATE) {
+							Path child = dir.resolve(path);
+							if (Files.isDirectory(child)) {
+								try {
+									child.register(service, ENTRY_CREATE, ENTRY_MODIFY);
+								} catch (IOException e) {
+									Log.warn(String.format("Failed to watch directory '%s'.", child), e);
+								}
+							}
+						}
+					} else if (beatmapPath.equals(dir.getParent()))  // inside a beatmap directory
+						changedDirs.add(dir.getFileName().toString());
+				}
+				if (!key.reset()) {
+					if (dir.equals(beatmapPath)) {
+						Log.warn(String.format("Stopped watching directory '%s'.", dir));
+						break;
+					} else if (dir.equals(oszPath))
+						Log.warn(String.format("Stopped watching directory '%s'.", dir));
+				}
+			}
+		} catch (InterruptedException e) {
+			// stopped
+		} catch (IOException e) {
+			Log.warn("Failed to watch beatmap directories.", e);
+		}
+	}
+
+	/**
+	 * Unpacks new OSZ archives and parses all new or modified beatmap directories.
+	 * @param beatmapDir the beatmap directory
+	 * @param oszDir the OSZ archive directory
+	 * @param changedDirs the names of changed beatmap directories
+	 * @param oszChanged whether any OSZ archives were added
+	 */
+	private static void update(File beatmapDir, File oszDir, HashSet<String> changedDirs, boolean oszChanged) {
+		// unpack OSZ archives
+		ArrayList<File> dirs = new ArrayList<File>();
+		if (oszChanged) {
+			for (File dir : OszUnpacker.unpackAllFiles(oszDir, beatmapDir)) {
+				dirs.add(dir);
+				changedDirs.remove(dir.getName());
+			}
+		}
+		for (String name : changedDirs)
+			dirs.add(new File(beatmapDir, name));
+
+		// parse directories
+		List<ArrayList<OsuFile>> groups = OsuParser.parseModifiedDirectories(dirs.toArray(new File[dirs.size()]));
+		if (!groups.isEmpty())
+			addParsedSongGroups(groups);
+	}
+}
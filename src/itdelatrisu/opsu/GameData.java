@@ -23,7 +23,6 @@ import itdelatrisu.opsu.audio.MusicController;
 import itdelatrisu.opsu.audio.SoundController;
 import itdelatrisu.opsu.audio.SoundEffect;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 
@@ -265,8 +264,11 @@ public class GameData {
 	/** Default text symbol images. */
 	private Image[] defaultSymbols;
 
-	/** Score text symbol images. */
-	private HashMap<Character, Image> scoreSymbols;
+	/** Score text symbol images, indexed by character. */
+	private Image[] scoreSymbols;
+
+	/** Reusable buffer for formatting symbol strings (render thread only). */
+	private final char[] symbolBuffer = new char[32];
 
 	/** Scorebar animation. */
 	private Animation scorebarColour;
@@ -375,21 +377,21 @@ public class GameData {
 		}
 
 		// score symbol images
-		scoreSymbols = new HashMap<Character, Image>(14);
-		scoreSymbols.put('0', GameImage.SCORE_0.getImage());
-		scoreSymbols.put('1', GameImage.SCORE_1.getImage());
-		scoreSymbols.put('2', GameImage.SCORE_2.getImage());
-		scoreSymbols.put('3', GameImage.SCORE_3.getImage());
-		scoreSymbols.put('4', GameImage.SCORE_4.getImage());
-		scoreSymbols.put('5', GameImage.SCORE_5.getImage());
-		scoreSymbols.put('6', GameImage.SCORE_6.getImage());
-		scoreSymbols.put('7', GameImage.SCORE_7.getImage());
-		scoreSymbols.put('8', GameImage.SCORE_8.getImage());
-		scoreSymbols.put('9', GameImage.SCORE_9.getImage());
-		scoreSymbols.put(',', GameImage.SCORE_COMMA.getImage());
-		scoreSymbols.put('.', GameImage.SCORE_DOT.getImage());
-		scoreSymbols.put('%', GameImage.SCORE_PERCENT.getImage());
-		scoreSymbols.put('x', GameImage.SCORE_X.getImage());
+		scoreSymbols = new Image['x' + 1];
+		scoreSymbols['0'] = GameImage.SCORE_0.getImage();
+		scoreSymbols['1'] = GameImage.SCORE_1.getImage();
+		scoreSymbols['2'] = GameImage.SCORE_2.getImage();
+		scoreSymbols['3'] = GameImage.SCORE_3.getImage();
+		scoreSymbols['4'] = GameImage.SCORE_4.getImage();
+		scoreSymbols['5'] = GameImage.SCORE_5.getImage();
+		scoreSymbols['6'] = GameImage.SCORE_6.getImage();
+		scoreSymbols['7'] = GameImage.SCORE_7.getImage();
+		scoreSymbols['8'] = GameImage.SCORE_8.getImage();
+		scoreSymbols['9'] = GameImage.SCORE_9.getImage();
+		scoreSymbols[','] = GameImage.SCORE_COMMA.getImage();
+		scoreSymbols['.'] = GameImage.SCORE_DOT.getImage();
+		scoreSymbols['%'] = GameImage.SCORE_PERCENT.getImage();
+		scoreSymbols['x'] = GameImage.SCORE_X.getImage();
 
 		// hit result images
 		hitResults = new Image[HIT_MAX];
@@ -408,7 +410,7 @@ public class GameData {
 	 * Returns a default/score text symbol image for a character.
 	 */
 	public Image getDefaultSymbolImage(int i) { return defaultSymbols[i]; }
-	public Image getScoreSymbolImage(char c) { return scoreSymbols.get(c); }
+	public Image getScoreSymbolImage(char c) { return (c < scoreSymbols.length) ? scoreSymbols[c] : null; }
 
 	/**
 	 * Sets or returns the health drain rate.
@@ -439,77 +441,134 @@ public class GameData {
 		float digitWidth = getDefaultSymbolImage(0).getWidth() * scale;
 		float cx = x + ((length - 1) * (digitWidth / 2));
 
+		SpriteBatch.begin();
 		for (int i = 0; i < length; i++) {
-			getDefaultSymbolImage(n % 10).getScaledCopy(scale).drawCentered(cx, y);
+			Utils.drawCentered(getDefaultSymbolImage(n % 10), cx, y, scale, Color.white);
 			cx -= digitWidth;
 			n /= 10;
 		}
+		SpriteBatch.end();
+	}
+
+	/**
+	 * Draws a number with scoreSymbols.
+	 * @param n the number to draw (non-negative)
+	 * @param x the starting x coordinate
+	 * @param y the y coordinate
+	 * @param scale the scale to apply
+	 * @param alpha the alpha level
+	 * @param rightAlign align right (true) or left (false)
+	 */
+	public void drawScoreSymbolNumber(long n, float x, float y, float scale, float alpha, boolean rightAlign) {
+		drawSymbolString(symbolBuffer, appendNumber(n, 1, 0), x, y, scale, alpha, rightAlign);
 	}
 
 	/**
 	 * Draws a string of scoreSymbols.
-	 * @param str the string to draw
+	 * @param c the characters to draw
+	 * @param length the number of characters to draw
 	 * @param x the starting x coordinate
 	 * @param y the y coordinate
 	 * @param scale the scale to apply
 	 * @param alpha the alpha level
 	 * @param rightAlign align right (true) or left (false)
 	 */
-	public void drawSymbolString(String str, float x, float y, float scale, float alpha, boolean rightAlign) {
-		char[] c = str.toCharArray();
+	public void drawSymbolString(char[] c, int length, float x, float y, float scale, float alpha, boolean rightAlign) {
 		float cx = x;
+		SpriteBatch.begin();
 		if (rightAlign) {
-			for (int i = c.length - 1; i >= 0; i--) {
+			for (int i = length - 1; i >= 0; i--) {
 				Image digit = getScoreSymbolImage(c[i]);
-				if (scale != 1.0f)
-					digit = digit.getScaledCopy(scale);
-				cx -= digit.getWidth();
+				cx -= digit.getWidth() * scale;
 				digit.setAlpha(alpha);
-				digit.draw(cx, y);
+				Utils.drawScaled(digit, cx, y, scale, Color.white);
 				digit.setAlpha(1f);
 			}
 		} else {
-			for (int i = 0; i < c.length; i++) {
+			for (int i = 0; i < length; i++) {
 				Image digit = getScoreSymbolImage(c[i]);
-				if (scale != 1.0f)
-					digit = digit.getScaledCopy(scale);
 				digit.setAlpha(alpha);
-				digit.draw(cx, y);
+				Utils.drawScaled(digit, cx, y, scale, Color.white);
 				digit.setAlpha(1f);
-				cx += digit.getWidth();
+				cx += digit.getWidth() * scale;
 			}
 		}
+		SpriteBatch.end();
 	}
 
 	/**
 	 * Draws a string of scoreSymbols of fixed width.
-	 * @param str the string to draw
+	 * @param c the characters to draw
+	 * @param length the number of characters to draw
 	 * @param x the starting x coordinate
 	 * @param y the y coordinate
 	 * @param scale the scale to apply
 	 * @param fixedsize the width to use for all symbols
 	 * @param rightAlign align right (true) or left (false)
 	 */
-	public void drawFixedSizeSymbolString(String str, float x, float y, float scale, float fixedsize, boolean rightAlign) {
-		char[] c = str.toCharArray();
+	public void drawFixedSizeSymbolString(char[] c, int length, float x, float y, float scale, float fixedsize, boolean rightAlign) {
 		float cx = x;
+		SpriteBatch.begin();
 		if (rightAlign) {
-			for (int i = c.length - 1; i >= 0; i--) {
+			for (int i = length - 1; i >= 0; i--) {
 				Image digit = getScoreSymbolImage(c[i]);
-				if (scale != 1.0f)
-					digit = digit.getScaledCopy(scale);
 				cx -= fixedsize;
-				digit.draw(cx + (fixedsize - digit.getWidth()) / 2, y);
+				Utils.drawScaled(digit, cx + (fixedsize - digit.getWidth() * scale) / 2, y, scale, Color.white);
 			}
 		} else {
-			for (int i = 0; i < c.length; i++) {
+			for (int i = 0; i < length; i++) {
 				Image digit = getScoreSymbolImage(c[i]);
-				if (scale != 1.0f)
-					digit = digit.getScaledCopy(scale);
-				digit.draw(cx + (fixedsize - digit.getWidth()) / 2, y);
+				Utils.drawScaled(digit, cx + (fixedsize - digit.getWidth() * scale) / 2, y, scale, Color.white);
 				cx += fixedsize;
 			}
 		}
+		SpriteBatch.end();
+	}
+
+	/**
+	 * Writes a non-negative integer into the symbol buffer, padded with leading zeros.
+	 * @param n the number
+	 * @param minDigits the minimum number of digits
+	 * @param offset the buffer index to start writing at
+	 * @return the buffer index after the last character written
+	 */
+	private int appendNumber(long n, int minDigits, int offset) {
+		int digits = 1;
+		for (long m = n / 10; m > 0; m /= 10)
+			digits++;
+		digits = Math.max(digits, minDigits);
+		for (int i = offset + digits - 1; i >= offset; i--) {
+			symbolBuffer[i] = (char) ('0' + (n % 10));
+			n /= 10;
+		}
+		return offset + digits;
+	}
+
+	/**
+	 * Writes a combo count (e.g. "123x") to the start of the symbol buffer.
+	 * @param n the combo count
+	 * @return the number of characters written
+	 */
+	private int appendCombo(int n) {
+		int length = appendNumber(n, 1, 0);
+		symbolBuffer[length++] = 'x';
+		return length;
+	}
+
+	/**
+	 * Writes a percentage with two decimal places (e.g. "98.76%") into the symbol buffer.
+	 * @param percent the percentage (non-negative)
+	 * @param minDigits the minimum number of integer digits
+	 * @param offset the buffer index to start writing at
+	 * @return the buffer index after the last character written
+	 */
+	private int appendPercent(float percent, int minDigits, int offset) {
+		long hundredths = Math.round(percent * 100.0);
+		offset = appendNumber(hundredths / 100, minDigits, offset);
+		symbolBuffer[offset++] = '.';
+		offset = appendNumber(hundredths % 100, 2, offset);
+		symbolBuffer[offset++] = '%';
+		return offset;
 	}
 
 	/**
@@ -527,14 +586,13 @@ public class GameData {
 
 		// score
 		if (!relaxAutoPilot)
-			drawFixedSizeSymbolString((scoreDisplay < 100000000) ? String.format("%08d", scoreDisplay) : Long.toString(scoreDisplay),
+			drawFixedSizeSymbolString(symbolBuffer, appendNumber(scoreDisplay, 8, 0),
 					width - margin, 0, 1.0f, getScoreSymbolImage('0').getWidth() - 2, true);
 
 		// score percentage
 		int symbolHeight = getScoreSymbolImage('0').getHeight();
 		if (!relaxAutoPilot)
-			drawSymbolString(
-					String.format((scorePercentDisplay < 10f) ? "0%.2f%%" : "%.2f%%", scorePercentDisplay),
+			drawSymbolString(symbolBuffer, appendPercent(scorePercentDisplay, 2, 0),
 					width - margin, symbolHeight, 0.60f, 1f, true);
 
 		// map progress circle
@@ -670,10 +728,10 @@ public class GameData {
 				float comboPop = 1 - ((float) comboPopTime / COMBO_POP_TIME);
 				float comboPopBack  = 1 + comboPop * 0.45f;
 				float comboPopFront = 1 + comboPop * 0.08f;
-				String comboString = String.format("%dx", combo);
+				int comboLength = appendCombo(combo);
 				if (comboPopTime != COMBO_POP_TIME)
-					drawSymbolString(comboString, margin, height - margin - (symbolHeight * comboPopBack), comboPopBack, 0.5f, false);
-				drawSymbolString(comboString, margin, height - margin - (symbolHeight * comboPopFront), comboPopFront, 1f, false);
+					drawSymbolString(symbolBuffer, comboLength, margin, height - margin - (symbolHeight * comboPopBack), comboPopBack, 0.5f, false);
+				drawSymbolString(symbolBuffer, comboLength, margin, height - margin - (symbolHeight * comboPopFront), comboPopFront, 1f, false);
 			}
 		} else if (!relaxAutoPilot) {
 			// grade
@@ -681,9 +739,7 @@ public class GameData {
 			if (grade != Grade.NULL) {
 				Image gradeImage = grade.getSmallImage();
 				float gradeScale = symbolHeight * 0.75f / gradeImage.getHeight();
-				gradeImage.getScaledCopy(gradeScale).draw(
-						circleX - gradeImage.getWidth(), symbolHeight
-				);
+				Utils.drawScaled(gradeImage, circleX - gradeImage.getWidth(), symbolHeight, gradeScale, Color.white);
 			}
 		}
 	}
@@ -704,8 +760,7 @@ public class GameData {
 		GameImage.RANKING_PANEL.getImage().draw(0, (int) (rankingHeight * GameImage.getUIscale()));
 
 		// score
-		drawFixedSizeSymbolString(
-				(score < 100000000) ? String.format("%08d", score) : Long.toString(score),
+		drawFixedSizeSymbolString(symbolBuffer, appendNumber(score, 8, 0),
 				(int) (210 * GameImage.getUIscale()),
 				(int) ((rankingHeight + 50) * GameImage.getUIscale()),
 				scoreTextScale,
@@ -727,17 +782,19 @@ public class GameData {
 		};
 
 		for (int i = 0; i < rankDrawOrder.length; i += 2) {
-			hitResults[rankDrawOrder[i]].getScaledCopy(rankResultScale).drawCentered(
+			Utils.drawCentered(hitResults[rankDrawOrder[i]],
 					(resultHitInitialX * GameImage.getUIscale()),
-					((resultHitInitialY  + (resultOffsetY * (i / 2))) * GameImage.getUIscale()));
-			hitResults[rankDrawOrder[i+1]].getScaledCopy(rankResultScale).drawCentered(
+					((resultHitInitialY  + (resultOffsetY * (i / 2))) * GameImage.getUIscale()),
+					rankResultScale, Color.white);
+			Utils.drawCentered(hitResults[rankDrawOrder[i+1]],
 					((resultHitInitialX + resultOffsetX) * GameImage.getUIscale()),
-					((resultHitInitialY  + (resultOffsetY * (i / 2))) * GameImage.getUIscale()));
-			drawSymbolString(String.format("%dx", rankResultOrder[i]),
+					((resultHitInitialY  + (resultOffsetY * (i / 2))) * GameImage.getUIscale()),
+					rankResultScale, Color.white);
+			drawSymbolString(symbolBuffer, appendCombo(rankResultOrder[i]),
 					(int) (resultInitialX * GameImage.getUIscale()),
 					(int) ((resultInitialY + (resultOffsetY * (i / 2))) * GameImage.getUIscale()),
 					symbolTextScale, 1f, false);
-			drawSymbolString(String.format("%dx", rankResultOrder[i+1]),
+			drawSymbolString(symbolBuffer, appendCombo(rankResultOrder[i+1]),
 					(int) ((resultInitialX + resultOffsetX) * GameImage.getUIscale()),
 					(int) ((resultInitialY + (resultOffsetY * (i / 2))) * GameImage.getUIscale()),
 					symbolTextScale, 1f, false);
@@ -747,10 +804,10 @@ public class GameData {
 		float accuracyX = 295;
 		float textY = rankingHeight + 425;
 		float numbersY = textY + 30;
-		drawSymbolString(String.format("%dx", comboMax),
+		drawSymbolString(symbolBuffer, appendCombo(comboMax),
 				(int) (25 * GameImage.getUIscale()),
 				(int) (numbersY * GameImage.getUIscale()), symbolTextScale, 1f, false);
-		drawSymbolString(String.format("%02.2f%%", getScorePercent()),
+		drawSymbolString(symbolBuffer, appendPercent(getScorePercent(), 1, 0),
 				(int) ((accuracyX + 20) * GameImage.getUIscale()),
 				(int) (numbersY * GameImage.getUIscale()), symbolTextScale, 1f, false);
 		GameImage.RANKING_MAXCOMBO.getImage().draw(
@@ -825,15 +882,14 @@ public class GameData {
 				else if (Options.isHitLightingEnabled() && hitResult.result != HIT_MISS &&
 					hitResult.result != HIT_SLIDER30 && hitResult.result != HIT_SLIDER10) {
 					float scale = 1f + ((trackPosition - hitResult.time) / (float) HITRESULT_FADE_TIME);
-					Image scaledLighting  = GameImage.LIGHTING.getImage().getScaledCopy(scale);
-					Image scaledLighting1 = GameImage.LIGHTING1.getImage().getScaledCopy(scale);
-					scaledLighting.setAlpha(hitResult.alpha);
-					scaledLighting1.setAlpha(hitResult.alpha);
-
-					scaledLighting.draw(hitResult.x - (scaledLighting.getWidth() / 2f),
-							hitResult.y - (scaledLighting.getHeight() / 2f), hitResult.color);
-					scaledLighting1.draw(hitResult.x - (scaledLighting1.getWidth() / 2f),
-							hitResult.y - (scaledLighting1.getHeight() / 2f), hitResult.color);
+					Image lighting  = GameImage.LIGHTING.getImage();
+					Image lighting1 = GameImage.LIGHTING1.getImage();
+					lighting.setAlpha(hitResult.alpha);
+					lighting1.setAlpha(hitResult.alpha);
+					Utils.drawCentered(lighting, hitResult.x, hitResult.y, scale, hitResult.color);
+					Utils.drawCentered(lighting1, hitResult.x, hitResult.y, scale, hitResult.color);
+					lighting.setAlpha(1f);
+					lighting1.setAlpha(1f);
 				}
 
 				hitResult.alpha = 1 - ((float) (trackPosition - hitResult.time) / HITRESULT_FADE_TIME);
@@ -484,6 +484,18 @@ public enum GameImage {
 	/** The beatmap skin image array (optional, temporary). */
 	private Image[] skinImages;
 
+	/** Whether or not the skin image(s) belong to the skin texture atlas. */
+	private boolean skinImageInAtlas = false;
+
+	/** Texture atlases containing default images (never destroyed, like the default images). */
+	private static List<TextureAtlas> defaultAtlases = new ArrayList<TextureAtlas>();
+
+	/** Texture atlas containing beatmap skin images (null if none). */
+	private static TextureAtlas skinAtlas;
+
+	/** Number of resources with skin images in the skin texture atlas. */
+	private static int skinAtlasUsers = 0;
+
 	/** Container dimensions. */
 	private static int containerWidth, containerHeight;
 
@@ -517,7 +529,11 @@ public enum GameImage {
 		for (GameImage img : GameImage.values()) {
 			img.defaultImage = img.skinImage = null;
 			img.defaultImages = img.skinImages = null;
+			img.skinImageInAtlas = false;
 		}
+		defaultAtlases.clear();
+		skinAtlas = null;
+		skinAtlasUsers = 0;
 	}
 
 	/**
@@ -676,43 +692,62 @@ public enum GameImage {
 		}
 	}
 
+	/**
+	 * Sets the default images of the given resources, packing them into a
+	 * single texture atlas.  Images which cannot be packed are loaded individually.
+	 * Resources whose default images have already been loaded are skipped.
+	 * @param images the resources
+	 */
+	public static void setDefaultImages(List<GameImage> images) {
+		// pack all default images into an atlas
+		List<String> names = new ArrayList<String>();
+		for (GameImage img : images) {
+			if (img.defaultImage != null || img.defaultImages != null)
+				continue;
+			List<String> arrayNames = img.getDefaultImageArrayFileNames();
+			if (!arrayNames.isEmpty())
+				names.addAll(arrayNames);
+			else {
+				String name = getImageFileName(img.filename, Options.getSkinDir(), img.type, false);
+				if (name != null)
+					names.add(name);
+			}
+		}
+		TextureAtlas atlas = TextureAtlas.create(names);
+		if (atlas != null)
+			defaultAtlases.add(atlas);
+
+		// load the default images
+		for (GameImage img : images)
+			img.setDefaultImage(atlas);
+	}
+
 	/**
 	 * Sets the default image for this resource.
 	 * If the default image has already been loaded, this will do nothing.
 	 */
-	public void setDefaultImage() {
+	public void setDefaultImage() { setDefaultImage(null); }
+
+	/**
+	 * Sets the default image for this resource, from a texture atlas if possible.
+	 * If the default image has already been loaded, this will do nothing.
+	 * @param atlas the texture atlas containing the default images (or null)
+	 */
+	private void setDefaultImage(TextureAtlas atlas) {
 		if (defaultImage != null || defaultImages != null)
 			return;
 
 		// load image array
-		if (filenameFormat != null) {
-			List<Image> list = new ArrayList<Image>();
-			File dir = Options.getSkinDir();
-			int i = 0;
-			while (true) {
-				// look for next image
-				String filenameFormatted = String.format(filenameFormat, i++);
-				String name = getImageFileName(filenameFormatted, dir, type, true);
-				if (i == 1 && name == null) {  // first image: check other location
-					dir = null;
-					name = getImageFileName(filenameFormatted, dir, type, true);
-				}
-				if (name == null)
-					break;
-
-				// add image to list
-				try {
-					Image img = new Image(name);
-					list.add(img);
-				} catch (SlickException e) {
-					ErrorHandler.error(String.format("Failed to set default image '%s'.", name), null, false);
-					break;
-				}
-			}
-			if (!list.isEmpty()) {
-				this.defaultImages = list.toArray(new Image[list.size()]);
+		List<String> names = getDefaultImageArrayFileNames();
+		if (!names.isEmpty()) {
+			// use the atlas images, or decode all images in parallel
+			Image[] images = (atlas != null) ? atlas.getImages(names) : null;
+			try {
+				this.defaultImages = (images != null) ? images : ImageLoader.loadAll(names);
 				process();
 				return;
+			} catch (SlickException e) {
+				ErrorHandler.error(String.format("Failed to set default images '%s'.", filenameFormat), null, false);
 			}
 		}
 
@@ -723,14 +758,125 @@ public enum GameImage {
 			return;
 		}
 		try {
-			Image img = new Image(name);
-			this.defaultImage = img;
+			Image img = (atlas != null) ? atlas.getImage(name) : null;
+			this.defaultImage = (img != null) ? img : new Image(name);
 			process();
 		} catch (SlickException e) {
 			ErrorHandler.error(String.format("Failed to set default image '%s'.", filename), null, false);
 		}
 	}
 
+	/**
+	 * Returns the file names of all default images in the image array.
+	 * Images are taken from the skin directory if the first image is found
+	 * there, and from the default resource locations otherwise.
+	 * @return the list of file names (empty if none, or not an image array)
+	 */
+	private List<String> getDefaultImageArrayFileNames() {
+		List<String> names = new ArrayList<String>();
+		if (filenameFormat == null)
+			return names;
+
+		File dir = Options.getSkinDir();
+		int i = 0;
+		while (true) {
+			// look for next image
+			String filenameFormatted = String.format(filenameFormat, i++);
+			String name = getImageFileName(filenameFormatted, dir, type, true);
+			if (i == 1 && name == null) {  // first image: check other location
+				dir = null;
+				name = getImageFileName(filenameFormatted, dir, type, true);
+			}
+			if (name == null)
+				break;
+			names.add(name);
+		}
+		return names;
+	}
+
+	/**
+	 * Sets the skin images of all skinnable resources, packing them into a
+	 * single texture atlas.  Images which cannot be packed are loaded individually.
+	 * @param dir the directory containing the skin images
+	 */
+	public static void setSkinImages(File dir) {
+		if (dir == null)
+			return;
+
+		// destroy the existing images, if any
+		for (GameImage img : GameImage.values()) {
+			if (img.isSkinnable())
+				img.destroySkinImage();
+		}
+
+		// beatmap skins disabled
+		if (Options.isBeatmapSkinIgnored())
+			return;
+
+		// pack all skin images into an atlas
+		List<String> names = new ArrayList<String>();
+		for (GameImage img : GameImage.values()) {
+			if (!img.isSkinnable())
+				continue;
+			List<String> arrayNames = img.getSkinImageArrayFileNames(dir);
+			if (!arrayNames.isEmpty())
+				names.addAll(arrayNames);
+			else {
+				String name = getImageFileName(img.filename, dir, img.type, true);
+				if (name != null)
+					names.add(name);
+			}
+		}
+		skinAtlas = TextureAtlas.create(names);
+
+		// load the skin images
+		for (GameImage img : GameImage.values()) {
+			if (img.isSkinnable())
+				img.setSkinImage(dir);
+		}
+		if (skinAtlas != null && skinAtlasUsers == 0) {
+			skinAtlas.destroy();
+			skinAtlas = null;
+		}
+	}
+
+	/**
+	 * Returns the file names of all skin images in the image array.
+	 * @param dir the directory containing the skin images
+	 * @return the list of file names (empty if none, or not an image array)
+	 */
+	private List<String> getSkinImageArrayFileNames(File dir) {
+		List<String> names = new ArrayList<String>();
+		if (filenameFormat == null)
+			return names;
+
+		for (int i = 0; ; i++) {
+			String name = getImageFileName(String.format(filenameFormat, i), dir, type, true);
+			if (name == null)
+				break;
+			names.add(name);
+		}
+		return names;
+	}
+
+	/**
+	 * Loads a skin image, from the skin texture atlas if possible.
+	 * @param name the image file name
+	 * @return the image
+	 * @throws SlickException if the image could not be loaded
+	 */
+	private Image loadSkinImage(String name) throws SlickException {
+		Image img = (skinAtlas != null) ? skinAtlas.getImage(name) : null;
+		if (img != null) {
+			if (!skinImageInAtlas) {
+				skinImageInAtlas = true;
+				skinAtlasUsers++;
+			}
+			return img;
+		}
+		return new Image(name);
+	}
+
 	/**
 	 * Sets the associated skin image.
 	 * If the path does not contain the image, the default image is used.
@@ -750,17 +896,10 @@ public enum GameImage {
 		// look for multiple skin images
 		if (filenameFormat != null) {
 			List<Image> list = new ArrayList<Image>();
-			int i = 0;
-			while (true) {
-				// look for next image
-				String filenameFormatted = String.format(filenameFormat, i++);
-				String name = getImageFileName(filenameFormatted, dir, type, true);
-				if (name == null)
-					break;
-
+			for (String name : getSkinImageArrayFileNames(dir)) {
 				// add image to list
 				try {
-					Image img = new Image(name);
+					Image img = loadSkinImage(name);
 					list.add(img);
 				} catch (SlickException e) {
 					ErrorHandler.error(String.format("Failed to set skin image '%s'.", name), null, false);
@@ -779,7 +918,7 @@ public enum GameImage {
 		if (name == null)
 			return false;
 		try {
-			Image img = new Image(name);
+			Image img = loadSkinImage(name);
 			this.skinImage = img;
 			process();
 			return true;
@@ -804,19 +943,21 @@ public enum GameImage {
 
 	/**
 	 * Destroys the associated skin image(s), if any.
+	 * Images in the skin texture atlas are destroyed along with the atlas,
+	 * once no resources are using it.
 	 */
 	public void destroySkinImage() {
 		if (skinImage == null && skinImages == null)
 			return;
 		try {
 			if (skinImage != null) {
-				if (!skinImage.isDestroyed())
+				if (!skinImage.isDestroyed() && !isInSkinAtlas(skinImage))
 					skinImage.destroy();
 				skinImage = null;
 			}
 			if (skinImages != null) {
 				for (int i = 0; i < skinImages.length; i++) {
-					if (!skinImages[i].isDestroyed())
+					if (!skinImages[i].isDestroyed() && !isInSkinAtlas(skinImages[i]))
 						skinImages[i].destroy();
 				}
 				skinImages = null;
@@ -824,6 +965,23 @@ public enum GameImage {
 		} catch (SlickException e) {
 			ErrorHandler.error(String.format("Failed to destroy skin images for '%s'.", this.name()), e, true);
 		}
+
+		// release the atlas
+		if (skinImageInAtlas) {
+			skinImageInAtlas = false;
+			if (--skinAtlasUsers == 0) {
+				skinAtlas.destroy();
+				skinAtlas = null;
+			}
+		}
+	}
+
+	/**
+	 * Returns whether or not an image belongs to the skin texture atlas.
+	 * @param img the image
+	 */
+	private static boolean isInSkinAtlas(Image img) {
+		return (skinAtlas != null && skinAtlas.contains(img));
 	}
 
 	/**
@@ -0,0 +1,336 @@
+/*
+ * opsu! - an open-source osu! client
+ * Copyright (C) 2014, 2015 Jeffrey Han
+ *
+ * opsu! is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * opsu! is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with opsu!.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package itdelatrisu.opsu;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.newdawn.slick.Image;
+import org.newdawn.slick.ImageBuffer;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.opengl.ImageData;
+import org.newdawn.slick.opengl.ImageDataFactory;
+import org.newdawn.slick.opengl.LoadableImageData;
+import org.newdawn.slick.util.Log;
+import org.newdawn.slick.util.ResourceLoader;
+
+/**
+ * Asynchronous image loader.
+ * <p>
+ * Image files are decoded on a pool of worker threads.  Only the texture
+ * upload, which requires the OpenGL context, takes place on the render
+ * thread, the first time {@link #getImage()} is called after decoding
+ * finishes.  Until then, callers should draw a placeholder.
+ * <p>
+ * Images may optionally be scaled down on the worker thread to the size at
+ * which they will be drawn, which reduces both upload time and texture memory.
+ */
+public class ImageLoader {
+	/** Number of decoding threads. */
+	private static final int THREAD_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+	/** Decoding thread pool. */
+	private static ExecutorService executor;
+
+	/** The image file. */
+	private final File file;
+
+	/** The size to scale the image down to cover (0 if not scaled). */
+	private final int width, height;
+
+	/** The pending decode task (null if none). */
+	private Future<ImageData> task;
+
+	/** The loaded image (null if not yet loaded). */
+	private Image image;
+
+	/** Whether or not the image failed to load. */
+	private boolean error = false;
+
+	/**
+	 * Decodes an image file.
+	 * This method is thread-safe, and may be called from any thread.
+	 * @param name the image file name
+	 * @param forceAlpha whether or not to always decode to 32-bit RGBA
+	 * @return the decoded image data
+	 * @throws IOException if the image could not be read
+	 */
+	public static LoadableImageData decode(String name, boolean forceAlpha) throws IOException {
+		LoadableImageData imageData = ImageDataFactory.getImageDataFor(name);
+		try (InputStream in = new BufferedInputStream(ResourceLoader.getResourceAsStream(name))) {
+			imageData.loadImage(in, false, forceAlpha, null);
+		} catch (RuntimeException e) {
+			throw new IOException(String.format("Failed to decode image '%s'.", name), e);
+		}
+		return imageData;
+	}
+
+	/**
+	 * Decodes image files in parallel, waiting for all of them to finish.
+	 * @param names the image file names
+	 * @param forceAlpha whether or not to always decode to 32-bit RGBA
+	 * @return the decoded image data, in the same order (null entries for failures)
+	 */
+	public static List<LoadableImageData> decodeAll(List<String> names, boolean forceAlpha) {
+		List<Future<LoadableImageData>> tasks = new ArrayList<Future<LoadableImageData>>(names.size());
+		for (String name : names)
+			tasks.add(submit(name, forceAlpha));
+
+		List<LoadableImageData> list = new ArrayList<LoadableImageData>(names.size());
+		for (int i = 0; i < tasks.size(); i++) {
+			try {
+				list.add(tasks.get(i).get());
+			} catch (InterruptedException | ExecutionException e) {
+				Log.warn(String.format("Failed to decode image '%s'.", names.get(i)), e);
+				list.add(null);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Loads images, decoding the files in parallel.
+	 * This must be called from the render thread.
+	 * @param names the image file names
+	 * @return the images, in the same order
+	 * @throws SlickException if any image could not be loaded
+	 */
+	public static Image[] loadAll(List<String> names) throws SlickException {
+		List<LoadableImageData> list = decodeAll(names, false);
+		Image[] images = new Image[list.size()];
+		for (int i = 0; i < images.length; i++) {
+			LoadableImageData data = list.get(i);
+			if (data == null) {
+				for (int j = 0; j < i; j++)
+					images[j].destroy();
+				throw new SlickException(String.format("Failed to load image '%s'.", names.get(i)));
+			}
+			images[i] = new Image(data);
+		}
+		return images;
+	}
+
+	/**
+	 * Submits an image file to be decoded.
+	 * @param name the image file name
+	 * @param forceAlpha whether or not to always decode to 32-bit RGBA
+	 * @return the decode task
+	 */
+	private static Future<LoadableImageData> submit(final String name, final boolean forceAlpha) {
+		return getExecutor().submit(new Callable<LoadableImageData>() {
+			@Override
+			public LoadableImageData call() throws IOException { return decode(name, forceAlpha); }
+		});
+	}
+
+	/**
+	 * Returns the decoding thread pool, creating it if necessary.
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "ImageLoader-" + count.incrementAndGet());
+					t.setDaemon(true);
+					t.setPriority(Thread.NORM_PRIORITY - 1);
+					return t;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Scales decoded image data down, if necessary, so that it just covers an area.
+	 * The aspect ratio is maintained.  A box filter is used.
+	 * @param data the decoded image data (24-bit RGB or 32-bit RGBA)
+	 * @param width the width to cover
+	 * @param height the height to cover
+	 * @return the scaled image data, or the original data if it is not larger than the area
+	 */
+	private static ImageData scale(ImageData data, int width, int height) {
+		int srcWidth = data.getWidth(), srcHeight = data.getHeight();
+		float scale = Math.max(width / (float) srcWidth, height / (float) srcHeight);
+		if (width <= 0 || height <= 0 || scale >= 1f)
+			return data;
+
+		int dstWidth = Math.max(1, Math.round(srcWidth * scale));
+		int dstHeight = Math.max(1, Math.round(srcHeight * scale));
+		int bpp = data.getDepth() / 8;
+		int srcStride = data.getTexWidth() * bpp;
+		ByteBuffer src = data.getImageBufferData();
+		ImageBuffer buffer = new ImageBuffer(dstWidth, dstHeight);
+		byte[] dst = buffer.getRGBA();
+		int dstStride = buffer.getTexWidth() * 4;
+
+		// source column ranges for each destination column
+		int[] x0 = new int[dstWidth], x1 = new int[dstWidth];
+		for (int dx = 0; dx < dstWidth; dx++) {
+			x0[dx] = dx * srcWidth / dstWidth;
+			x1[dx] = Math.max(x0[dx] + 1, (dx + 1) * srcWidth / dstWidth);
+		}
+
+		int[] sum = new int[4];
+		for (int dy = 0; dy < dstHeight; dy++) {
+			int y0 = dy * srcHeight / dstHeight;
+			int y1 = Math.max(y0 + 1, (dy + 1) * srcHeight / dstHeight);
+			for (int dx = 0; dx < dstWidth; dx++) {
+				sum[0] = sum[1] = sum[2] = sum[3] = 0;
+				for (int sy = y0; sy < y1; sy++) {
+					int offset = sy * srcStride + x0[dx] * bpp;
+					for (int sx = x0[dx]; sx < x1[dx]; sx++, offset += bpp) {
+						sum[0] += src.get(offset) & 0xff;
+						sum[1] += src.get(offset + 1) & 0xff;
+						sum[2] += src.get(offset + 2) & 0xff;
+						sum[3] += (bpp == 4) ? src.get(offset + 3) & 0xff : 0xff;
+					}
+				}
+				int count = (y1 - y0) * (x1[dx] - x0[dx]);
+				int offset = dy * dstStride + dx * 4;
+				for (int i = 0; i < 4; i++)
+					dst[offset + i] = (byte) (sum[i] / count);
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * Constructor.
+	 * @param file the image file
+	 */
+	public ImageLoader(File file) {
+		this(file, 0, 0);
+	}
+
+	/**
+	 * Constructor for an image to be scaled down, if larger, to just cover an area.
+	 * @param file the image file
+	 * @param width the width to cover
+	 * @param height the height to cover
+	 */
+	public ImageLoader(File file, int width, int height) {
+		this.file = file;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Starts decoding the image, if not already started.
+	 */
+	public void load() {
+		if (task != null || image != null || error)
+			return;
+
+		final String name = file.getAbsolutePath();
+		task = getExecutor().submit(new Callable<ImageData>() {
+			@Override
+			public ImageData call() throws IOException { return scale(decode(name, false), width, height); }
+		});
+	}
+
+	/**
+	 * Returns the image file.
+	 */
+	public File getFile() { return file; }
+
+	/**
+	 * Returns whether or not the image is still being decoded.
+	 */
+	public boolean isLoading() { return (task != null && !task.isDone()); }
+
+	/**
+	 * Returns whether or not the image failed to load.
+	 */
+	public boolean isError() { return error; }
+
+	/**
+	 * Returns the (estimated) texture memory used by the image, in bytes.
+	 * If the image has not been loaded yet, the size of the area it will be
+	 * scaled to is used instead.
+	 */
+	public long getSize() {
+		if (image != null)
+			return (long) image.getTexture().getTextureWidth() * image.getTexture().getTextureHeight() * 4;
+		if (error || (task == null && image == null))
+			return 0;
+		return getSize(width, height);
+	}
+
+	/**
+	 * Returns the (estimated) texture memory used by an image scaled to cover an area, in bytes.
+	 * @param width the width to cover
+	 * @param height the height to cover
+	 */
+	public static long getSize(int width, int height) {
+		return (long) Utils.getPowerOfTwo(width) * Utils.getPowerOfTwo(height) * 4;
+	}
+
+	/**
+	 * Returns the image, uploading it to a texture if it has just finished decoding.
+	 * This must be called from the render thread.
+	 * @return the image, or null if it has not been loaded (yet)
+	 */
+	public Image getImage() {
+		if (image == null && task != null && task.isDone()) {
+			try {
+				image = new Image(task.get());
+			} catch (InterruptedException | ExecutionException | RuntimeException e) {
+				Log.warn(String.format("Failed to load image '%s'.", file.getAbsolutePath()), e);
+				error = true;
+			}
+			task = null;
+		}
+		return image;
+	}
+
+	/**
+	 * Cancels loading the image, and destroys it if it has been loaded.
+	 */
+	public void destroy() {
+		if (task != null) {
+			task.cancel(false);
+			task = null;
+		}
+		if (image != null) {
+			if (!image.isDestroyed()) {
+				try {
+					image.destroy();
+				} catch (SlickException e) {
+					Log.warn(String.format("Failed to destroy image '%s'.", file.getAbsolutePath()), e);
+				}
+			}
+			image = null;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * opsu! - an open-source osu! client
+ * Copyright (C) 2014, 2015 Jeffrey Han
+ *
+ * opsu! is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * opsu! is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with opsu!.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package itdelatrisu.opsu;
+
+import itdelatrisu.opsu.audio.MusicController;
+
+import org.lwjgl.input.Keyboard;
+import org.lwjgl.input.Mouse;
+
+/**
+ * Timestamps for input events.
+ * <p>
+ * Input events are only dispatched once per frame, when the input devices
+ * are polled, so the time at which a listener is called can be up to a
+ * frame later than the time the event actually occurred.  The native event
+ * timestamps recorded for each event are used instead.
+ * <p>
+ * Native timestamps are not necessarily in the same time base as
+ * {@link System#nanoTime()} (and differ between platforms), so the offset
+ * between the two is estimated as the minimum difference between the
+ * dispatch time and the event time over recent events.  This must only be
+ * called from within input listener methods, while the event is current.
+ */
+public class InputTimer {
+	/** Number of recent clock offset samples to keep. */
+	private static final int OFFSET_SAMPLES = 32;
+
+	/** Maximum delay between an event and its dispatch that is trusted, in nanoseconds. */
+	private static final long MAX_EVENT_DELAY = 250_000_000L;
+
+	/** Estimated offset between a native time base and System.nanoTime(). */
+	private static class ClockOffset {
+		/** Recent offsets (dispatch time - event time), in nanoseconds. */
+		private final long[] samples = new long[OFFSET_SAMPLES];
+
+		/** Index of the next sample to write. */
+		private int index = 0;
+
+		/** Number of samples recorded. */
+		private int count = 0;
+
+		/**
+		 * Records an offset sample.
+		 * @param offset the dispatch time minus the native event time
+		 * @return the minimum offset over recent samples
+		 */
+		public long add(long offset) {
+			samples[index] = offset;
+			index = (index + 1) % OFFSET_SAMPLES;
+			if (count < OFFSET_SAMPLES)
+				count++;
+			long min = Long.MAX_VALUE;
+			for (int i = 0; i < count; i++)
+				min = Math.min(min, samples[i]);
+			return min;
+		}
+	}
+
+	/** Clock offsets for mouse and keyboard events (which may use different time bases). */
+	private static final ClockOffset
+		mouseOffset = new ClockOffset(),
+		keyOffset = new ClockOffset();
+
+	// This class should not be instantiated.
+	private InputTimer() {}
+
+	/**
+	 * Returns the time at which the current mouse event occurred.
+	 * @return the time, in the {@link System#nanoTime()} time base
+	 */
+	public static long getMouseEventTime() { return getEventTime(Mouse.getEventNanoseconds(), mouseOffset); }
+
+	/**
+	 * Returns the time at which the current keyboard event occurred.
+	 * @return the time, in the {@link System#nanoTime()} time base
+	 */
+	public static long getKeyEventTime() { return getEventTime(Keyboard.getEventNanoseconds(), keyOffset); }
+
+	/**
+	 * Returns the track position at which the current mouse event occurred.
+	 */
+	public static int getMouseEventTrackPosition() { return toTrackPosition(getMouseEventTime()); }
+
+	/**
+	 * Returns the track position at which the current keyboard event occurred.
+	 */
+	public static int getKeyEventTrackPosition() { return toTrackPosition(getKeyEventTime()); }
+
+	/**
+	 * Converts a time into a track position, based on the current track position.
+	 * If the track is not playing, the current track position is returned.
+	 * @param time the time, in the {@link System#nanoTime()} time base
+	 * @return the track position, in milliseconds
+	 */
+	public static int toTrackPosition(long time) {
+		int trackPosition = MusicController.getPosition();
+		if (!MusicController.isPlaying())
+			return trackPosition;
+		long age = System.nanoTime() - time;
+		return trackPosition - (int) Math.round(age / 1_000_000.0);
+	}
+
+	/**
+	 * Converts a native event timestamp into the {@link System#nanoTime()} time base.
+	 * @param eventNanos the native event timestamp (0 if not supported)
+	 * @param clockOffset the clock offset for the event source
+	 * @return the event time
+	 */
+	private static long getEventTime(long eventNanos, ClockOffset clockOffset) {
+		long now = System.nanoTime();
+		if (eventNanos == 0)
+			return now;
+
+		// the event cannot have occurred after now, or implausibly long ago
+		long time = eventNanos + clockOffset.add(now - eventNanos);
+		if (time > now || now - time > MAX_EVENT_DELAY)
+			return now;
+		return time;
+	}
+}
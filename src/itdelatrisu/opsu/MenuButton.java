@@ -189,21 +189,14 @@ public class MenuButton {
 			else {
 				float oldAlpha = image.getAlpha();
 				float oldAngle = image.getRotation();
-				if ((hoverEffect & EFFECT_EXPAND) > 0) {
-					if (scale != 1f) {
-						image = image.getScaledCopy(scale);
-						image.setAlpha(oldAlpha);
-					}
-				}
+				float drawScale = ((hoverEffect & EFFECT_EXPAND) > 0) ? scale : 1f;
 				if ((hoverEffect & EFFECT_FADE) > 0)
 					image.setAlpha(alpha);
 				if ((hoverEffect & EFFECT_ROTATE) > 0)
 					image.setRotation(angle);
-				image.draw(x - xRadius, y - yRadius, filter);
-				if (image != this.img) {
-					image.setAlpha(oldAlpha);
-					image.setRotation(oldAngle);
-				}
+				Utils.drawScaled(image, x - xRadius, y - yRadius, drawScale, filter);
+				image.setAlpha(oldAlpha);
+				image.setRotation(oldAngle);
 			}
 		}
 
@@ -201,6 +201,9 @@ public class Opsu extends StateBasedGame {
 	 * Closes all resources and exits the application.
 	 */
 	public static void exit() {
+		// stop watching beatmap directories
+		BeatmapWatcher.stop();
+
 		// close databases
 		DBController.closeConnections();
 
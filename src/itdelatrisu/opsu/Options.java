@@ -66,6 +66,9 @@ public class Options {
 	/** Score database name. */
 	public static final File SCORE_DB = new File(DATA_DIR, ".opsu_scores.db");
 
+	/** Parsed hit object cache directory. */
+	public static final File HIT_OBJECT_CACHE_DIR = new File(DATA_DIR, ".opsu_cache/objects/");
+
 	/** Font file name. */
 	public static final String FONT_NAME = "kochi-gothic.ttf";
 
@@ -247,6 +250,16 @@ public class Options {
 			}
 		},
 		ENABLE_THEME_SONG ("Enable Theme Song", "Whether to play the theme song upon starting opsu!", true),
+		ENABLE_WATCH_SERVICE ("Watch Beatmap Folders", "Automatically import new beatmaps and song packs.", true) {
+			@Override
+			public void click(GameContainer container) {
+				super.click(container);
+				if (bool)
+					BeatmapWatcher.start();
+				else
+					BeatmapWatcher.stop();
+			}
+		},
 		SHOW_HIT_ERROR_BAR ("Show Hit Error Bar", "Shows precisely how accurate you were with each hit.", false),
 		DISABLE_MOUSE_WHEEL ("Disable mouse wheel in play mode", "During play, you can use the mouse wheel to adjust the volume and pause the game.\nThis will disable that functionality.", false),
 		DISABLE_MOUSE_BUTTONS ("Disable mouse buttons in play mode", "This option will disable all mouse buttons.\nSpecifically for people who use their keyboard to click.", false);
@@ -666,6 +679,12 @@ public class Options {
 	 */
 	public static boolean isThemeSongEnabled() { return GameOption.ENABLE_THEME_SONG.getBooleanValue(); }
 
+	/**
+	 * Returns whether or not to watch the beatmap and OSZ directories for changes.
+	 * @return true if enabled
+	 */
+	public static boolean isWatchServiceEnabled() { return GameOption.ENABLE_WATCH_SERVICE.getBooleanValue(); }
+
 	/**
 	 * Sets the track checkpoint time, if within bounds.
 	 * @param time the track position (in ms)
@@ -997,6 +1016,9 @@ public class Options {
 					case "MenuMusic":
 						GameOption.ENABLE_THEME_SONG.setValue(Boolean.parseBoolean(value));
 						break;
+					case "WatchService":
+						GameOption.ENABLE_WATCH_SERVICE.setValue(Boolean.parseBoolean(value));
+						break;
 					}
 				} catch (NumberFormatException e) {
 					Log.warn(String.format("Format error in options file for line: '%s'.", line), e);
@@ -1101,6 +1123,8 @@ public class Options {
 			writer.newLine();
 			writer.write(String.format("MenuMusic = %b", isThemeSongEnabled()));
 			writer.newLine();
+			writer.write(String.format("WatchService = %b", isWatchServiceEnabled()));
+			writer.newLine();
 			writer.close();
 		} catch (IOException e) {
 			ErrorHandler.error(String.format("Failed to write to file '%s'.", OPTIONS_FILE.getAbsolutePath()), e, false);
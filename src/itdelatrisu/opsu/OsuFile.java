@@ -20,23 +20,31 @@ package itdelatrisu.opsu;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 
 import org.newdawn.slick.Color;
 import org.newdawn.slick.Image;
-import org.newdawn.slick.SlickException;
 import org.newdawn.slick.util.Log;
 
 /**
  * Data type storing parsed data from OSU files.
  */
 public class OsuFile implements Comparable<OsuFile> {
-	/** Map of all loaded background images. */
-	private static HashMap<OsuFile, Image> bgImageMap = new HashMap<OsuFile, Image>();
+	/** Map of all loaded background images, by file, in least-recently used order. */
+	private static LinkedHashMap<File, ImageLoader> bgImageMap = createImageCache();
 
-	/** Maximum number of cached images before all get erased. */
-	private static final int MAX_CACHE_SIZE = 10;
+	/** Default maximum texture memory used by cached background images (in bytes). */
+	private static final long MAX_CACHE_BYTES = 96L * 1024 * 1024;
+
+	/** Maximum texture memory used by cached background images (in bytes), raised to fit the prefetched images. */
+	private static long cacheBudget = MAX_CACHE_BYTES;
+
+	/** Background image files that are never evicted (the last prefetched images). */
+	private static HashSet<File> pinnedImages = new HashSet<File>();
 
 	/** The OSU File object associated with this OsuFile. */
 	private File file;
@@ -197,15 +205,8 @@ public class OsuFile implements Comparable<OsuFile> {
 	 * Destroys all cached background images and resets the cache.
 	 */
 	public static void clearImageCache() {
-		for (Image img : bgImageMap.values()) {
-			if (img != null && !img.isDestroyed()) {
-				try {
-					img.destroy();
-				} catch (SlickException e) {
-					Log.warn(String.format("Failed to destroy image '%s'.", img.getResourceReference()), e);
-				}
-			}
-		}
+		for (ImageLoader imageLoader : bgImageMap.values())
+			imageLoader.destroy();
 		resetImageCache();
 	}
 
@@ -214,7 +215,61 @@ public class OsuFile implements Comparable<OsuFile> {
 	 * This does NOT destroy images, so be careful of memory leaks!
 	 */
 	public static void resetImageCache() {
-		bgImageMap = new HashMap<OsuFile, Image>();
+		bgImageMap = createImageCache();
+		pinnedImages = new HashSet<File>();
+		cacheBudget = MAX_CACHE_BYTES;
+	}
+
+	/**
+	 * Returns a new, empty background image cache.
+	 */
+	private static LinkedHashMap<File, ImageLoader> createImageCache() {
+		return new LinkedHashMap<File, ImageLoader>(16, 0.75f, true);
+	}
+
+	/**
+	 * Evicts the least-recently used background images until the cache
+	 * is within its memory budget.  The most recently used image and the
+	 * pinned (prefetched) images are never evicted.
+	 */
+	private static void trimImageCache() {
+		long size = 0;
+		for (ImageLoader imageLoader : bgImageMap.values())
+			size += imageLoader.getSize();
+
+		Iterator<ImageLoader> iter = bgImageMap.values().iterator();
+		for (int n = bgImageMap.size(); size > cacheBudget && n > 1; n--) {
+			ImageLoader imageLoader = iter.next();
+			if (pinnedImages.contains(imageLoader.getFile()))
+				continue;
+			size -= imageLoader.getSize();
+			imageLoader.destroy();
+			iter.remove();
+		}
+	}
+
+	/**
+	 * Starts loading the backgrounds of the given OsuFiles in the background,
+	 * if not already loaded, so that they can be drawn without delay.
+	 * <p>
+	 * The backgrounds are pinned in the cache (and the cache budget is raised
+	 * to fit them) until the next call.  They are loaded in reverse order,
+	 * so the first one is the most recently used.
+	 * @param osuFiles the OsuFiles, most important first (e.g. the focus, then its neighbors)
+	 * @param width the container width
+	 * @param height the container height
+	 */
+	public static void loadBGs(List<OsuFile> osuFiles, int width, int height) {
+		pinnedImages = new HashSet<File>();
+		for (OsuFile osu : osuFiles) {
+			File bgFile = osu.getBGFile();
+			if (bgFile != null)
+				pinnedImages.add(bgFile);
+		}
+		cacheBudget = Math.max(MAX_CACHE_BYTES, osuFiles.size() * ImageLoader.getSize(width, height));
+
+		for (int i = osuFiles.size() - 1; i >= 0; i--)
+			osuFiles.get(i).getBGLoader(width, height);
 	}
 
 	/**
@@ -249,24 +304,55 @@ public class OsuFile implements Comparable<OsuFile> {
 		return (Options.useUnicodeMetadata() && !artistUnicode.isEmpty()) ? artistUnicode : artist;
 	}
 
+	/**
+	 * Returns the cached loader for the background image, creating and
+	 * starting it if not already cached.
+	 * @param width the container width
+	 * @param height the container height
+	 * @return the image loader, or null if there is no background image
+	 */
+	private ImageLoader getBGLoader(int width, int height) {
+		File bgFile = getBGFile();
+		if (bgFile == null)
+			return null;
+
+		ImageLoader imageLoader = bgImageMap.get(bgFile);
+		if (imageLoader == null) {
+			imageLoader = new ImageLoader(bgFile, width, height);
+			imageLoader.load();
+			bgImageMap.put(bgFile, imageLoader);
+			trimImageCache();
+		}
+		return imageLoader;
+	}
+
+	/**
+	 * Returns the background image file, or null if none.
+	 */
+	private File getBGFile() { return (bg == null) ? null : new File(file.getParentFile(), bg); }
+
 	/**
 	 * Draws the background associated with the OsuFile.
+	 * The image is loaded in the background the first time this is called;
+	 * until it is ready, nothing is drawn and false is returned.
 	 * @param width the container width
 	 * @param height the container height
 	 * @param alpha the alpha value
 	 * @param stretch if true, stretch to screen dimensions; otherwise, maintain aspect ratio
-	 * @return true if successful, false if any errors were produced
+	 * @return true if successful, false if any errors were produced or the image is not yet loaded
 	 */
 	public boolean drawBG(int width, int height, float alpha, boolean stretch) {
 		if (bg == null)
 			return false;
 		try {
-			Image bgImage = bgImageMap.get(this);
+			ImageLoader imageLoader = getBGLoader(width, height);
+			Image bgImage = imageLoader.getImage();
 			if (bgImage == null) {
-				if (bgImageMap.size() > MAX_CACHE_SIZE)
-					clearImageCache();
-				bgImage = new Image(new File(file.getParentFile(), bg).getAbsolutePath());
-				bgImageMap.put(this, bgImage);
+				if (imageLoader.isError()) {
+					bgImageMap.remove(imageLoader.getFile());
+					bg = null;  // don't try to load the file again until a restart
+				}
+				return false;
 			}
 
 			int swidth = width;
@@ -284,10 +370,9 @@ public class OsuFile implements Comparable<OsuFile> {
 				else
 					sheight = (int) (width * bgImage.getHeight() / (float) bgImage.getWidth());
 			}
-			bgImage = bgImage.getScaledCopy(swidth, sheight);
-
 			bgImage.setAlpha(alpha);
-			bgImage.drawCentered(width / 2, height / 2);
+			bgImage.draw((width - swidth) / 2f, (height - sheight) / 2f, swidth, sheight);
+			bgImage.setAlpha(1f);
 		} catch (Exception e) {
 			Log.warn(String.format("Failed to get background image '%s'.", bg), e);
 			bg = null;  // don't try to load the file again until a restart
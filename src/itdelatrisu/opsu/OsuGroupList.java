@@ -25,10 +25,19 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,9 +50,22 @@ public class OsuGroupList {
 
 	/** Search pattern for conditional expressions. */
 	private static final Pattern SEARCH_CONDITION_PATTERN = Pattern.compile(
-		"(ar|cs|od|hp|bpm|length)(=|==|>|>=|<|<=)((\\d*\\.)?\\d+)"
+		String.format("(%s)(=|==|>|>=|<|<=)((\\d*\\.)?\\d+)", getAttributeNames())
 	);
 
+	/**
+	 * Returns the names of all conditional search attributes, separated by '|'.
+	 */
+	private static String getAttributeNames() {
+		StringBuilder sb = new StringBuilder();
+		for (OsuGroupSearchIndex.Attribute attr : OsuGroupSearchIndex.Attribute.values()) {
+			if (sb.length() > 0)
+				sb.append('|');
+			sb.append(attr.getName());
+		}
+		return sb.toString();
+	}
+
 	/** List containing all parsed nodes. */
 	private ArrayList<OsuGroupNode> parsedNodes;
 
@@ -56,6 +78,9 @@ public class OsuGroupList {
 	/** Set of all beatmap set IDs for the parsed beatmaps. */
 	private HashSet<Integer> MSIDdb;
 
+	/** Search index over all parsed nodes. */
+	private OsuGroupSearchIndex searchIndex;
+
 	/** Index of current expanded node (-1 if no node is expanded). */
 	private int expandedIndex;
 
@@ -65,6 +90,12 @@ public class OsuGroupList {
 	/** The last search query. */
 	private String lastQuery;
 
+	/** Search worker, shared by all instances. */
+	private static ExecutorService searchExecutor;
+
+	/** The pending search task (null if none). */
+	private Future<ArrayList<OsuGroupNode>> searchTask;
+
 	/**
 	 * Creates a new instance of this class (overwriting any previous instance).
 	 */
@@ -81,6 +112,7 @@ public class OsuGroupList {
 	private OsuGroupList() {
 		parsedNodes = new ArrayList<OsuGroupNode>();
 		MSIDdb = new HashSet<Integer>();
+		searchIndex = new OsuGroupSearchIndex();
 		reset();
 	}
 
@@ -93,6 +125,7 @@ public class OsuGroupList {
 		expandedIndex = -1;
 		expandedStartNode = expandedEndNode = null;
 		lastQuery = "";
+		cancelSearch();
 	}
 
 	/**
@@ -109,6 +142,7 @@ public class OsuGroupList {
 		OsuGroupNode node = new OsuGroupNode(osuFiles);
 		parsedNodes.add(node);
 		mapCount += osuFiles.size();
+		searchIndex.add(node);
 
 		// add beatmap set ID to set
 		int msid = osuFiles.get(0).beatmapSetID;
@@ -118,6 +152,32 @@ public class OsuGroupList {
 		return node;
 	}
 
+	/**
+	 * Removes song groups from the list without deleting any files.
+	 * The list should be re-initialized with {@link #init()} afterwards.
+	 * @param removedNodes the nodes containing the song groups to remove
+	 */
+	public void removeSongGroups(Collection<OsuGroupNode> removedNodes) {
+		if (removedNodes.isEmpty())
+			return;
+
+		reset();
+		HashSet<OsuGroupNode> set = new HashSet<OsuGroupNode>(removedNodes);
+		Iterator<OsuGroupNode> iter = parsedNodes.iterator();
+		while (iter.hasNext()) {
+			OsuGroupNode node = iter.next();
+			if (!set.contains(node))
+				continue;
+
+			iter.remove();
+			mapCount -= node.osuFiles.size();
+			searchIndex.remove(node);
+			int msid = node.osuFiles.get(0).beatmapSetID;
+			if (msid > 0)
+				MSIDdb.remove(msid);
+		}
+	}
+
 	/**
 	 * Deletes a song group from the list, and also deletes the beatmap
 	 * directory associated with the node.
@@ -153,6 +213,8 @@ public class OsuGroupList {
 		nodes.remove(index);
 		parsedNodes.remove(eCur);
 		mapCount -= node.osuFiles.size();
+		searchIndex.remove(eCur);
+		cancelSearch();
 		if (osu.beatmapSetID > 0)
 			MSIDdb.remove(osu.beatmapSetID);
 
@@ -221,6 +283,7 @@ public class OsuGroupList {
 		// remove song reference
 		OsuFile osu = node.osuFiles.remove(node.osuFileIndex);
 		mapCount--;
+		searchIndex.update(getBaseNode(node.index));
 
 		// re-link nodes
 		if (node.prev != null)
@@ -252,6 +315,17 @@ public class OsuGroupList {
 	 */
 	public int getMapSetCount() { return parsedNodes.size(); }
 
+	/**
+	 * Returns a map of beatmap directory names to song group nodes,
+	 * containing all parsed nodes.
+	 */
+	public Map<String, OsuGroupNode> getDirectoryMap() {
+		Map<String, OsuGroupNode> map = new HashMap<String, OsuGroupNode>(parsedNodes.size());
+		for (OsuGroupNode node : parsedNodes)
+			map.put(node.osuFiles.get(0).getFile().getParentFile().getName(), node);
+		return map;
+	}
+
 	/**
 	 * Returns the OsuGroupNode at an index, disregarding expansions.
 	 */
@@ -393,7 +467,9 @@ public class OsuGroupList {
 	}
 
 	/**
-	 * Creates a new list of song groups in which each group contains a match to a search query.
+	 * Starts a search for song groups containing a match to a search query.
+	 * The search is run in a background thread, replacing any pending search;
+	 * the results are applied with {@link #applySearchResults()}.
 	 * @param query the search query (terms separated by spaces)
 	 * @return false if query is the same as the previous one, true otherwise
 	 */
@@ -406,86 +482,107 @@ public class OsuGroupList {
 		if (lastQuery != null && query.equals(lastQuery))
 			return false;
 		lastQuery = query;
-		LinkedList<String> terms = new LinkedList<String>(Arrays.asList(query.split("\\s+")));
+		cancelSearch();
+
+		final ArrayList<OsuGroupNode> allNodes = parsedNodes;
+		final String searchQuery = query;
+		searchTask = getSearchExecutor().submit(new Callable<ArrayList<OsuGroupNode>>() {
+			@Override
+			public ArrayList<OsuGroupNode> call() { return getSearchResults(searchQuery, allNodes); }
+		});
+		return true;
+	}
 
-		// if empty query, reset to original list
-		if (query.isEmpty() || terms.isEmpty()) {
-			nodes = parsedNodes;
-			return true;
+	/**
+	 * Returns whether or not a search is in progress.
+	 */
+	public boolean isSearching() { return searchTask != null; }
+
+	/**
+	 * Replaces the current list with the results of the pending search, if finished.
+	 * The list should be re-initialized with {@link #init()} afterwards.
+	 * @return true if the results were applied, false if no results are available
+	 */
+	public boolean applySearchResults() {
+		if (searchTask == null || !searchTask.isDone())
+			return false;
+
+		try {
+			nodes = searchTask.get();
+			expandedIndex = -1;
+			expandedStartNode = expandedEndNode = null;
+		} catch (InterruptedException | ExecutionException e) {
+			ErrorHandler.error("Failed to search song groups.", e, true);
+			lastQuery = null;
+		} finally {
+			searchTask = null;
 		}
+		return lastQuery != null;
+	}
 
-		// find and remove any conditional search terms
-		LinkedList<String> condType     = new LinkedList<String>();
-		LinkedList<String> condOperator = new LinkedList<String>();
-		LinkedList<Float>  condValue    = new LinkedList<Float>();
+	/**
+	 * Returns the query of the last search, or null if it was cancelled.
+	 */
+	public String getLastQuery() { return lastQuery; }
+
+	/**
+	 * Cancels the pending search, if any.
+	 * The next call to {@link #search(String)} will always start a new search.
+	 */
+	private void cancelSearch() {
+		if (searchTask == null)
+			return;
+
+		searchTask.cancel(true);
+		searchTask = null;
+		lastQuery = null;
+	}
+
+	/**
+	 * Returns the list of song groups matching a search query.
+	 * This is called from the search thread, and so only accesses the search index.
+	 * @param query the lowercase search query (terms separated by spaces)
+	 * @param allNodes the list of all nodes, returned for empty queries
+	 * @return the list of matching nodes
+	 */
+	private ArrayList<OsuGroupNode> getSearchResults(String query, ArrayList<OsuGroupNode> allNodes) {
+		// if empty query, reset to original list
+		LinkedList<String> terms = new LinkedList<String>(Arrays.asList(query.split("\\s+")));
+		if (query.isEmpty() || terms.isEmpty())
+			return allNodes;
 
+		// find and remove any conditional search terms
+		ArrayList<OsuGroupSearchIndex.Condition> conditions = new ArrayList<OsuGroupSearchIndex.Condition>();
 		Iterator<String> termIter = terms.iterator();
 		while (termIter.hasNext()) {
 			String term = termIter.next();
 			Matcher m = SEARCH_CONDITION_PATTERN.matcher(term);
 			if (m.find()) {
-				condType.add(m.group(1));
-				condOperator.add(m.group(2));
-				condValue.add(Float.parseFloat(m.group(3)));
+				conditions.add(new OsuGroupSearchIndex.Condition(
+						OsuGroupSearchIndex.Attribute.getAttribute(m.group(1)),
+						m.group(2), Float.parseFloat(m.group(3))));
 				termIter.remove();
 			}
 		}
 
-		// build an initial list from first search term
-		nodes = new ArrayList<OsuGroupNode>();
-		if (terms.isEmpty()) {
-			// conditional term
-			String type = condType.remove();
-			String operator = condOperator.remove();
-			float value = condValue.remove();
-			for (OsuGroupNode node : parsedNodes) {
-				if (node.matches(type, operator, value))
-					nodes.add(node);
-			}
-		} else {
-			// normal term
-			String term = terms.remove();
-			for (OsuGroupNode node : parsedNodes) {
-				if (node.matches(term))
-					nodes.add(node);
-			}
-		}
-
-		// iterate through remaining normal search terms
-		while (!terms.isEmpty()) {
-			if (nodes.isEmpty())
-				return true;
-
-			String term = terms.remove();
-
-			// remove nodes from list if they don't match all terms
-			Iterator<OsuGroupNode> nodeIter = nodes.iterator();
-			while (nodeIter.hasNext()) {
-				OsuGroupNode node = nodeIter.next();
-				if (!node.matches(term))
-					nodeIter.remove();
-			}
-		}
+		return searchIndex.search(terms, conditions);
+	}
 
-		// iterate through remaining conditional terms
-		while (!condType.isEmpty()) {
-			if (nodes.isEmpty())
-				return true;
-
-			String type = condType.remove();
-			String operator = condOperator.remove();
-			float value = condValue.remove();
-
-			// remove nodes from list if they don't match all terms
-			Iterator<OsuGroupNode> nodeIter = nodes.iterator();
-			while (nodeIter.hasNext()) {
-				OsuGroupNode node = nodeIter.next();
-				if (!node.matches(type, operator, value))
-					nodeIter.remove();
-			}
+	/**
+	 * Returns the search executor, creating it if necessary.
+	 */
+	private static synchronized ExecutorService getSearchExecutor() {
+		if (searchExecutor == null) {
+			searchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "SongSearch");
+					t.setDaemon(true);
+					return t;
+				}
+			});
 		}
-
-		return true;
+		return searchExecutor;
 	}
 
 	/**
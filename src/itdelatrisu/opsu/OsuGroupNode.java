@@ -144,74 +144,4 @@ public class OsuGroupNode {
 		else
 			return osuFiles.get(osuFileIndex).toString();
 	}
-
-	/**
-	 * Checks whether the node matches a given search query.
-	 * @param query the search term
-	 * @return true if title, artist, creator, source, version, or tag matches query
-	 */
-	public boolean matches(String query) {
-		OsuFile osu = osuFiles.get(0);
-
-		// search: title, artist, creator, source, version, tags (first OsuFile)
-		if (osu.title.toLowerCase().contains(query) ||
-			osu.titleUnicode.toLowerCase().contains(query) ||
-			osu.artist.toLowerCase().contains(query) ||
-			osu.artistUnicode.toLowerCase().contains(query) ||
-			osu.creator.toLowerCase().contains(query) ||
-			osu.source.toLowerCase().contains(query) ||
-			osu.version.toLowerCase().contains(query) ||
-			osu.tags.contains(query))
-			return true;
-
-		// search: version, tags (remaining OsuFiles)
-		for (int i = 1; i < osuFiles.size(); i++) {
-			osu = osuFiles.get(i);
-			if (osu.version.toLowerCase().contains(query) ||
-				osu.tags.contains(query))
-				return true;
-		}
-
-		return false;
-	}
-
-	/**
-	 * Checks whether the node matches a given condition.
-	 * @param type the condition type (ar, cs, od, hp, bpm, length)
-	 * @param operator the operator (=/==, >, >=, <, <=)
-	 * @param value the value
-	 * @return true if the condition is met
-	 */
-	public boolean matches(String type, String operator, float value) {
-		for (OsuFile osu : osuFiles) {
-			// get value
-			float osuValue;
-			switch (type) {
-				case "ar": osuValue = osu.approachRate; break;
-				case "cs": osuValue = osu.circleSize; break;
-				case "od": osuValue = osu.overallDifficulty; break;
-				case "hp": osuValue = osu.HPDrainRate; break;
-				case "bpm": osuValue = osu.bpmMax; break;
-				case "length": osuValue = osu.endTime / 1000; break;
-				default: return false;
-			}
-
-			// get operator
-			boolean met;
-			switch (operator) {
-				case "=":
-				case "==": met = (osuValue == value); break;
-				case ">":  met = (osuValue > value);  break;
-				case ">=": met = (osuValue >= value); break;
-				case "<":  met = (osuValue < value);  break;
-				case "<=": met = (osuValue <= value); break;
-				default: return false;
-			}
-
-			if (met)
-				return true;
-		}
-
-		return false;
-	}
-}
\ No newline at end of file
+}
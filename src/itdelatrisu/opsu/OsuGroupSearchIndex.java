@@ -0,0 +1,531 @@
+/*
+ * opsu! - an open-source osu! client
+ * Copyright (C) 2014, 2015 Jeffrey Han
+ *
+ * opsu! is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * opsu! is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with opsu!.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package itdelatrisu.opsu;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Index over song group metadata, used for searches.
+ * <p>
+ * For text searches, all searchable fields are lowercased and split into
+ * whitespace-separated tokens, each mapping to the list of nodes containing
+ * it.  Since search terms never contain whitespace, a term is a substring of
+ * a field if and only if it is a substring of one of its tokens.  The distinct
+ * tokens are themselves indexed by trigrams to quickly find all tokens
+ * containing a term.
+ * <p>
+ * For conditional searches, numeric attributes of each OsuFile are stored in
+ * columns, with one row per OsuFile.  Each column is kept sorted by value,
+ * so that a condition is answered with a binary search.
+ * <p>
+ * All public methods are synchronized, as searches are run in a separate thread.
+ */
+public class OsuGroupSearchIndex {
+	/** Numeric attributes available for conditional searches. */
+	public enum Attribute {
+		AR ("ar") {
+			@Override
+			public float getValue(OsuFile osu) { return osu.approachRate; }
+		},
+		CS ("cs") {
+			@Override
+			public float getValue(OsuFile osu) { return osu.circleSize; }
+		},
+		OD ("od") {
+			@Override
+			public float getValue(OsuFile osu) { return osu.overallDifficulty; }
+		},
+		HP ("hp") {
+			@Override
+			public float getValue(OsuFile osu) { return osu.HPDrainRate; }
+		},
+		BPM ("bpm") {
+			@Override
+			public float getValue(OsuFile osu) { return osu.bpmMax; }
+		},
+		LENGTH ("length") {
+			@Override
+			public float getValue(OsuFile osu) { return osu.endTime / 1000; }
+		};
+
+		/** The attribute name used in search queries. */
+		private String name;
+
+		/**
+		 * Constructor.
+		 * @param name the attribute name used in search queries
+		 */
+		Attribute(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Returns the attribute name used in search queries.
+		 */
+		public String getName() { return name; }
+
+		/**
+		 * Returns the attribute value for an OsuFile.
+		 * @param osu the OsuFile
+		 */
+		public abstract float getValue(OsuFile osu);
+
+		/**
+		 * Returns the attribute with the given name, or null if none.
+		 * @param name the attribute name used in search queries
+		 */
+		public static Attribute getAttribute(String name) {
+			for (Attribute attr : values()) {
+				if (attr.name.equals(name))
+					return attr;
+			}
+			return null;
+		}
+	}
+
+	/** Conditional search term. */
+	public static class Condition {
+		/** The attribute. */
+		private Attribute attribute;
+
+		/** The operator (=/==, >, >=, <, <=). */
+		private String operator;
+
+		/** The value to compare against. */
+		private float value;
+
+		/**
+		 * Constructor.
+		 * @param attribute the attribute
+		 * @param operator the operator (=/==, >, >=, <, <=)
+		 * @param value the value to compare against
+		 */
+		public Condition(Attribute attribute, String operator, float value) {
+			this.attribute = attribute;
+			this.operator = operator;
+			this.value = value;
+		}
+	}
+
+	/** Attribute column, with its rows sorted by value. */
+	private static class Column {
+		/** Attribute values, by row ID. */
+		private float[] values = new float[16];
+
+		/** Row IDs, sorted by value (only valid if sorted). */
+		private int[] sortedRows;
+
+		/** Attribute values, sorted. */
+		private float[] sortedValues;
+
+		/** Number of rows included in the sorted arrays. */
+		private int sortedSize = -1;
+	}
+
+	/** Growable list of primitive integers. */
+	private static class IntList {
+		/** The elements. */
+		private int[] data = new int[4];
+
+		/** The number of elements. */
+		private int size = 0;
+
+		/**
+		 * Appends an element to the list.
+		 * @param i the element
+		 */
+		public void add(int i) {
+			if (size == data.length) {
+				int[] newData = new int[size * 2];
+				System.arraycopy(data, 0, newData, 0, size);
+				data = newData;
+			}
+			data[size++] = i;
+		}
+	}
+
+	/** Length of the n-grams used to index tokens. */
+	private static final int GRAM_LENGTH = 3;
+
+	/** All indexed nodes, by node ID (null if removed). */
+	private ArrayList<OsuGroupNode> nodes = new ArrayList<OsuGroupNode>();
+
+	/** Map of indexed nodes to node IDs. */
+	private HashMap<OsuGroupNode, Integer> nodeIDs = new HashMap<OsuGroupNode, Integer>();
+
+	/** Set of IDs for all nodes currently in the index. */
+	private BitSet liveNodes = new BitSet();
+
+	/** All distinct tokens, by token ID. */
+	private ArrayList<String> tokens = new ArrayList<String>();
+
+	/** Map of tokens to token IDs. */
+	private HashMap<String, Integer> tokenIDs = new HashMap<String, Integer>();
+
+	/** Postings: the IDs of all nodes containing each token, by token ID. */
+	private ArrayList<IntList> postings = new ArrayList<IntList>();
+
+	/** Map of n-grams to the IDs of all tokens containing them. */
+	private HashMap<String, IntList> grams = new HashMap<String, IntList>();
+
+	/** Number of removed nodes still referenced by the postings. */
+	private int removedCount = 0;
+
+	/** Node IDs, by row ID (one row per OsuFile). */
+	private IntList rowNodes = new IntList();
+
+	/** Attribute columns, in the order of {@link Attribute#values()}. */
+	private Column[] columns = newColumns();
+
+	/**
+	 * Adds a node to the index.
+	 * @param node the song group node
+	 */
+	public synchronized void add(OsuGroupNode node) {
+		if (nodeIDs.containsKey(node))
+			return;
+
+		int id = nodes.size();
+		nodes.add(node);
+		nodeIDs.put(node, id);
+		liveNodes.set(id);
+		for (String token : getTokens(node))
+			postings.get(getTokenID(token)).add(id);
+
+		// add attribute rows
+		Attribute[] attributes = Attribute.values();
+		for (OsuFile osu : node.osuFiles) {
+			int row = rowNodes.size;
+			rowNodes.add(id);
+			for (int i = 0; i < attributes.length; i++) {
+				Column column = columns[i];
+				if (row == column.values.length)
+					column.values = Arrays.copyOf(column.values, row * 2);
+				column.values[row] = attributes[i].getValue(osu);
+			}
+		}
+	}
+
+	/**
+	 * Removes a node from the index.
+	 * @param node the song group node
+	 */
+	public synchronized void remove(OsuGroupNode node) {
+		Integer id = nodeIDs.remove(node);
+		if (id == null)
+			return;
+
+		nodes.set(id, null);
+		liveNodes.clear(id);
+
+		// rebuild the index if too many stale entries remain
+		if (++removedCount > nodeIDs.size())
+			rebuild();
+	}
+
+	/**
+	 * Updates a node in the index after its song group has been modified.
+	 * @param node the song group node
+	 */
+	public synchronized void update(OsuGroupNode node) {
+		remove(node);
+		add(node);
+	}
+
+	/**
+	 * Returns all nodes matching every given search term and condition,
+	 * in the order they were added to the index.
+	 * @param terms the lowercase search terms (without whitespace)
+	 * @param conditions the conditional search terms
+	 * @return the list of matching nodes
+	 */
+	public synchronized ArrayList<OsuGroupNode> search(List<String> terms, List<Condition> conditions) {
+		BitSet result = (BitSet) liveNodes.clone();
+		for (String term : terms) {
+			if (result.isEmpty())
+				break;
+			result.and(getMatchingNodes(term));
+		}
+		for (Condition condition : conditions) {
+			if (result.isEmpty())
+				break;
+			result.and(getMatchingNodes(condition));
+		}
+
+		ArrayList<OsuGroupNode> list = new ArrayList<OsuGroupNode>(result.cardinality());
+		for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1))
+			list.add(nodes.get(i));
+		return list;
+	}
+
+	/**
+	 * Returns the set of IDs of all nodes with any OsuFile meeting a condition.
+	 * @param condition the condition
+	 */
+	private BitSet getMatchingNodes(Condition condition) {
+		Column column = getSortedColumn(condition.attribute);
+		int size = column.sortedSize;
+
+		// find the range of sorted rows meeting the condition
+		int start, end;
+		switch (condition.operator) {
+		case "=":
+		case "==":
+			start = lowerBound(column.sortedValues, size, condition.value);
+			end = upperBound(column.sortedValues, size, condition.value);
+			break;
+		case ">":
+			start = upperBound(column.sortedValues, size, condition.value);
+			end = size;
+			break;
+		case ">=":
+			start = lowerBound(column.sortedValues, size, condition.value);
+			end = size;
+			break;
+		case "<":
+			start = 0;
+			end = lowerBound(column.sortedValues, size, condition.value);
+			break;
+		case "<=":
+			start = 0;
+			end = upperBound(column.sortedValues, size, condition.value);
+			break;
+		default:
+			start = end = 0;
+			break;
+		}
+
+		BitSet matches = new BitSet(nodes.size());
+		for (int i = start; i < end; i++)
+			matches.set(rowNodes.data[column.sortedRows[i]]);
+		return matches;
+	}
+
+	/**
+	 * Returns the column for an attribute, sorting it first if any rows were added.
+	 * @param attribute the attribute
+	 */
+	private Column getSortedColumn(Attribute attribute) {
+		Column column = columns[attribute.ordinal()];
+		int size = rowNodes.size;
+		if (column.sortedSize == size)
+			return column;
+
+		// sort rows by value: pack each (value, row) pair into a long
+		// (values are mapped to ints that preserve their ordering)
+		long[] keys = new long[size];
+		for (int row = 0; row < size; row++) {
+			int bits = Float.floatToIntBits(column.values[row]);
+			if (bits < 0)
+				bits ^= 0x7fffffff;
+			keys[row] = ((long) bits << 32) | row;
+		}
+		Arrays.sort(keys);
+		column.sortedRows = new int[size];
+		column.sortedValues = new float[size];
+		for (int i = 0; i < size; i++) {
+			int row = (int) keys[i];
+			column.sortedRows[i] = row;
+			column.sortedValues[i] = column.values[row];
+		}
+		column.sortedSize = size;
+		return column;
+	}
+
+	/**
+	 * Returns the index of the first value not less than a key.
+	 * @param a the sorted array
+	 * @param size the number of elements in the array
+	 * @param key the key
+	 */
+	private static int lowerBound(float[] a, int size, float key) {
+		int low = 0, high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (a[mid] < key)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the index of the first value greater than a key.
+	 * @param a the sorted array
+	 * @param size the number of elements in the array
+	 * @param key the key
+	 */
+	private static int upperBound(float[] a, int size, float key) {
+		int low = 0, high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (a[mid] <= key)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the set of IDs of all nodes containing a search term.
+	 * @param term the search term
+	 */
+	private BitSet getMatchingNodes(String term) {
+		BitSet matches = new BitSet(nodes.size());
+		if (term.length() < GRAM_LENGTH) {
+			// short term: check all tokens
+			for (int i = 0, size = tokens.size(); i < size; i++) {
+				if (tokens.get(i).contains(term))
+					addPostings(matches, i);
+			}
+		} else {
+			// find the rarest n-gram in the term, then check all tokens containing it
+			IntList candidates = null;
+			for (int i = 0; i <= term.length() - GRAM_LENGTH; i++) {
+				IntList list = grams.get(term.substring(i, i + GRAM_LENGTH));
+				if (list == null)
+					return matches;
+				if (candidates == null || list.size < candidates.size)
+					candidates = list;
+			}
+			for (int i = 0; i < candidates.size; i++) {
+				int tokenID = candidates.data[i];
+				if (tokens.get(tokenID).contains(term))
+					addPostings(matches, tokenID);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Adds all node IDs in a token's postings to a set.
+	 * @param set the set of node IDs
+	 * @param tokenID the token ID
+	 */
+	private void addPostings(BitSet set, int tokenID) {
+		IntList list = postings.get(tokenID);
+		for (int i = 0; i < list.size; i++)
+			set.set(list.data[i]);
+	}
+
+	/**
+	 * Returns the ID for a token, adding it to the dictionary if needed.
+	 * @param token the token
+	 * @return the token ID
+	 */
+	private int getTokenID(String token) {
+		Integer id = tokenIDs.get(token);
+		if (id != null)
+			return id;
+
+		id = tokens.size();
+		tokens.add(token);
+		tokenIDs.put(token, id);
+		postings.add(new IntList());
+
+		// index token n-grams
+		HashSet<String> tokenGrams = new HashSet<String>();
+		for (int i = 0; i <= token.length() - GRAM_LENGTH; i++)
+			tokenGrams.add(token.substring(i, i + GRAM_LENGTH));
+		for (String gram : tokenGrams) {
+			IntList list = grams.get(gram);
+			if (list == null) {
+				list = new IntList();
+				grams.put(gram, list);
+			}
+			list.add(id);
+		}
+		return id;
+	}
+
+	/**
+	 * Rebuilds the index from all current nodes, discarding stale entries.
+	 */
+	private void rebuild() {
+		ArrayList<OsuGroupNode> oldNodes = nodes;
+		nodes = new ArrayList<OsuGroupNode>(nodeIDs.size());
+		nodeIDs = new HashMap<OsuGroupNode, Integer>();
+		liveNodes = new BitSet();
+		tokens = new ArrayList<String>();
+		tokenIDs = new HashMap<String, Integer>();
+		postings = new ArrayList<IntList>();
+		grams = new HashMap<String, IntList>();
+		removedCount = 0;
+		rowNodes = new IntList();
+		columns = newColumns();
+		for (OsuGroupNode node : oldNodes) {
+			if (node != null)
+				add(node);
+		}
+	}
+
+	/**
+	 * Returns a new, empty column for each attribute.
+	 */
+	private static Column[] newColumns() {
+		Column[] columns = new Column[Attribute.values().length];
+		for (int i = 0; i < columns.length; i++)
+			columns[i] = new Column();
+		return columns;
+	}
+
+	/**
+	 * Returns the set of distinct lowercase tokens in all searchable fields of a node:
+	 * title, artist, creator, source, version, and tags of the first OsuFile, and
+	 * version and tags of the remaining OsuFiles.
+	 * @param node the song group node
+	 */
+	private static HashSet<String> getTokens(OsuGroupNode node) {
+		HashSet<String> set = new HashSet<String>();
+		OsuFile osu = node.osuFiles.get(0);
+		addTokens(set, osu.title);
+		addTokens(set, osu.titleUnicode);
+		addTokens(set, osu.artist);
+		addTokens(set, osu.artistUnicode);
+		addTokens(set, osu.creator);
+		addTokens(set, osu.source);
+		for (OsuFile file : node.osuFiles) {
+			addTokens(set, file.version);
+			addTokens(set, file.tags);
+		}
+		return set;
+	}
+
+	/**
+	 * Adds the lowercase whitespace-separated tokens in a string to a set.
+	 * @param set the token set
+	 * @param s the string
+	 */
+	private static void addTokens(HashSet<String> set, String s) {
+		if (s == null || s.isEmpty())
+			return;
+
+		for (String token : s.toLowerCase().split("\\s+")) {
+			if (!token.isEmpty())
+				set.add(token);
+		}
+	}
+}
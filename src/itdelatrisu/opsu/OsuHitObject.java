@@ -18,6 +18,10 @@
 
 package itdelatrisu.opsu;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 /**
  * Data type representing a hit object.
  */
@@ -129,6 +133,16 @@ public class OsuHitObject {
 	 */
 	public static float getYMultiplier() { return yMultiplier; }
 
+	/**
+	 * Returns the X offset for coordinates.
+	 */
+	public static int getXOffset() { return xOffset; }
+
+	/**
+	 * Returns the Y offset for coordinates.
+	 */
+	public static int getYOffset() { return yOffset; }
+
 	/**
 	 * Constructor.
 	 * @param line the line to be parsed
@@ -205,6 +219,119 @@ public class OsuHitObject {
 		}
 	}
 
+	/**
+	 * Constructor.
+	 * Reads a hit object written by {@link #write(DataOutput)}.
+	 * Coordinates are not re-scaled, so they must have been written with
+	 * the current container dimensions.
+	 * @param buf the buffer to read from
+	 */
+	public OsuHitObject(ByteBuffer buf) {
+		this.x = buf.getFloat();
+		this.y = buf.getFloat();
+		this.time = buf.getInt();
+		this.type = buf.getInt();
+		this.hitSound = buf.get();
+		this.addition = readByteArray(buf);
+		if (hasSliderFields()) {
+			this.sliderType = buf.getChar();
+			int length = buf.getInt();
+			this.sliderX = new float[length];
+			this.sliderY = new float[length];
+			for (int i = 0; i < length; i++) {
+				sliderX[i] = buf.getFloat();
+				sliderY[i] = buf.getFloat();
+			}
+			this.repeat = buf.getInt();
+			this.pixelLength = buf.getFloat();
+			this.edgeHitSound = readByteArray(buf);
+			int edgeAdditionLength = buf.getInt();
+			if (edgeAdditionLength >= 0) {
+				this.edgeAddition = new byte[edgeAdditionLength][2];
+				for (int i = 0; i < edgeAdditionLength; i++) {
+					edgeAddition[i][0] = buf.get();
+					edgeAddition[i][1] = buf.get();
+				}
+			}
+		}
+		this.endTime = buf.getInt();
+	}
+
+	/**
+	 * Writes the hit object in a binary format, to be read by {@link #OsuHitObject(ByteBuffer)}.
+	 * Combo information is not written.
+	 * @param out the output to write to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeFloat(x);
+		out.writeFloat(y);
+		out.writeInt(time);
+		out.writeInt(type);
+		out.writeByte(hitSound);
+		writeByteArray(out, addition);
+		if (hasSliderFields()) {
+			out.writeChar(sliderType);
+			out.writeInt(sliderX.length);
+			for (int i = 0; i < sliderX.length; i++) {
+				out.writeFloat(sliderX[i]);
+				out.writeFloat(sliderY[i]);
+			}
+			out.writeInt(repeat);
+			out.writeFloat(pixelLength);
+			writeByteArray(out, edgeHitSound);
+			if (edgeAddition == null)
+				out.writeInt(-1);
+			else {
+				out.writeInt(edgeAddition.length);
+				for (int i = 0; i < edgeAddition.length; i++) {
+					out.writeByte(edgeAddition[i][0]);
+					out.writeByte(edgeAddition[i][1]);
+				}
+			}
+		}
+		out.writeInt(endTime);
+	}
+
+	/**
+	 * Returns whether or not the slider fields are set.
+	 * As in the parser, circle types take precedence, so objects with both
+	 * the circle and slider bits set have no slider fields.
+	 */
+	private boolean hasSliderFields() {
+		return (type & OsuHitObject.TYPE_CIRCLE) == 0 && (type & OsuHitObject.TYPE_SLIDER) > 0;
+	}
+
+	/**
+	 * Reads a length-prefixed byte array.
+	 * @param buf the buffer to read from
+	 * @return the array, or null if the length is negative
+	 */
+	private static byte[] readByteArray(ByteBuffer buf) {
+		int length = buf.getInt();
+		if (length < 0)
+			return null;
+
+		byte[] a = new byte[length];
+		buf.get(a);
+		return a;
+	}
+
+	/**
+	 * Writes a length-prefixed byte array.
+	 * @param out the output to write to
+	 * @param a the array (may be null)
+	 * @throws IOException if an I/O error occurs
+	 */
+	private static void writeByteArray(DataOutput out, byte[] a) throws IOException {
+		if (a == null)
+			out.writeInt(-1);
+		else {
+			out.writeInt(a.length);
+			out.write(a);
+		}
+	}
+
 	/**
 	 * Returns the starting x coordinate.
 	 * @return the x coordinate
@@ -0,0 +1,156 @@
+/*
+ * opsu! - an open-source osu! client
+ * Copyright (C) 2014, 2015 Jeffrey Han
+ *
+ * opsu! is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * opsu! is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with opsu!.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package itdelatrisu.opsu;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.newdawn.slick.util.Log;
+
+/**
+ * Binary cache of parsed hit objects.
+ * <p>
+ * Each OSU file is cached in its own file, which is written the first time
+ * its hit objects are parsed and read back when they are next needed.
+ * A cache file is only used if the OSU file has not been modified since,
+ * and if the hit object coordinates were scaled for the same container size.
+ */
+public class OsuHitObjectCache {
+	/** Cache directory. */
+	private static final File CACHE_DIR = Options.HIT_OBJECT_CACHE_DIR;
+
+	/** Cache file format identifier. */
+	private static final int MAGIC = 0x6f707375;  // "opsu"
+
+	/** Cache file format version (change this whenever the format changes). */
+	private static final int VERSION = 1;
+
+	// This class should not be instantiated.
+	private OsuHitObjectCache() {}
+
+	/**
+	 * Loads the cached hit objects for an OSU file.
+	 * Combo information is not set.
+	 * @param file the OSU file
+	 * @param count the expected number of hit objects
+	 * @return the hit objects, or null if there is no valid cache entry
+	 */
+	public static OsuHitObject[] load(File file, int count) {
+		File cacheFile = getCacheFile(file);
+		if (cacheFile == null || !cacheFile.isFile())
+			return null;
+
+		// read the whole file (not mapped, since a mapping would keep the file locked on Windows)
+		try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+			while (buf.hasRemaining()) {
+				if (channel.read(buf) < 0)
+					return null;  // truncated
+			}
+			buf.flip();
+
+			// check the header
+			if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+				return null;
+			byte[] path = new byte[buf.getInt()];
+			buf.get(path);
+			if (!new String(path, StandardCharsets.UTF_8).equals(file.getAbsolutePath()) ||
+			    buf.getLong() != file.lastModified() || buf.getLong() != file.length() ||
+			    buf.getFloat() != OsuHitObject.getXMultiplier() || buf.getFloat() != OsuHitObject.getYMultiplier() ||
+			    buf.getInt() != OsuHitObject.getXOffset() || buf.getInt() != OsuHitObject.getYOffset() ||
+			    buf.getInt() != count)
+				return null;
+
+			// read the hit objects
+			OsuHitObject[] objects = new OsuHitObject[count];
+			for (int i = 0; i < count; i++)
+				objects[i] = new OsuHitObject(buf);
+			return objects;
+		} catch (IOException | RuntimeException e) {  // e.g. BufferUnderflowException if truncated
+			Log.warn(String.format("Failed to read hit object cache for file '%s'.", file.getAbsolutePath()), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the hit objects for an OSU file to the cache.
+	 * @param file the OSU file
+	 * @param objects the hit objects (must not contain null entries)
+	 */
+	public static void save(File file, OsuHitObject[] objects) {
+		File cacheFile = getCacheFile(file);
+		if (cacheFile == null || (!CACHE_DIR.isDirectory() && !CACHE_DIR.mkdirs()))
+			return;
+
+		// write to a temporary file, then replace the cache file
+		File tmpFile = new File(CACHE_DIR, String.format("%s.%d.tmp", cacheFile.getName(), Thread.currentThread().getId()));
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+				byte[] path = file.getAbsolutePath().getBytes(StandardCharsets.UTF_8);
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(path.length);
+				out.write(path);
+				out.writeLong(file.lastModified());
+				out.writeLong(file.length());
+				out.writeFloat(OsuHitObject.getXMultiplier());
+				out.writeFloat(OsuHitObject.getYMultiplier());
+				out.writeInt(OsuHitObject.getXOffset());
+				out.writeInt(OsuHitObject.getYOffset());
+				out.writeInt(objects.length);
+				for (OsuHitObject hitObject : objects)
+					hitObject.write(out);
+			}
+			Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException | RuntimeException e) {
+			Log.warn(String.format("Failed to write hit object cache for file '%s'.", file.getAbsolutePath()), e);
+			tmpFile.delete();
+		}
+	}
+
+	/**
+	 * Returns the cache file for an OSU file, named by the MD5 hash of its path.
+	 * @param file the OSU file
+	 * @return the cache file, or null if the hash could not be computed
+	 */
+	private static File getCacheFile(File file) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("MD5");
+			byte[] digest = md.digest(file.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder(digest.length * 2 + 4);
+			for (byte b : digest)
+				sb.append(String.format("%02x", b & 0xff));
+			sb.append(".bin");
+			return new File(CACHE_DIR, sb.toString());
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+}
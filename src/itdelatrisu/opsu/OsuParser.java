@@ -30,33 +30,72 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.newdawn.slick.Color;
 import org.newdawn.slick.util.Log;
 
 /**
  * Parser for OSU files.
+ * <p>
+ * The public parsing methods are synchronized, since each of them reads the
+ * database, parses, and then inserts the results: overlapping calls (e.g. from
+ * the beatmap watcher and a song reload) would insert duplicate entries.
  */
 public class OsuParser {
 	/** The string lookup database. */
-	private static HashMap<String, String> stringdb = new HashMap<String, String>();
+	private static ConcurrentHashMap<String, String> stringdb = new ConcurrentHashMap<String, String>();
 
 	/** The expected pattern for beatmap directories, used to find beatmap set IDs. */
 	private static final String DIR_MSID_PATTERN = "^\\d+ .*";
 
+	/** File name filter for OSU files. */
+	private static final FilenameFilter OSU_FILE_FILTER = new FilenameFilter() {
+		@Override
+		public boolean accept(File dir, String name) {
+			return name.toLowerCase().endsWith(".osu");
+		}
+	};
+
+	/** The number of threads used to parse directories. */
+	private static final int PARSER_THREADS = Math.max(Runtime.getRuntime().availableProcessors(), 1);
+
 	/** The current file being parsed. */
-	private static File currentFile;
+	private static volatile File currentFile;
 
-	/** The current directory number while parsing. */
-	private static int currentDirectoryIndex = -1;
+	/** The number of directories parsed so far. */
+	private static AtomicInteger currentDirectoryIndex = new AtomicInteger(-1);
 
 	/** The total number of directories to parse. */
-	private static int totalDirectories = -1;
+	private static volatile int totalDirectories = -1;
 
 	/** Whether or not the database is currently being updated. */
-	private static boolean updatingDatabase = false;
+	private static volatile boolean updatingDatabase = false;
+
+	/** Results of parsing a single beatmap directory. */
+	private static class ParsedDirectory {
+		/** All OsuFiles in the song group. */
+		private ArrayList<OsuFile> osuFiles = new ArrayList<OsuFile>();
+
+		/** Newly-parsed OsuFiles (to be added to the database). */
+		private List<OsuFile> parsedOsuFiles = new ArrayList<OsuFile>();
+
+		/** Cached OsuFiles (to be loaded from the database). */
+		private Map<String, OsuFile> cachedOsuFiles = new HashMap<String, OsuFile>();
+
+		/** Names of files with outdated database entries. */
+		private List<String> staleFiles = new ArrayList<String>();
+	}
 
 	// This class should not be instantiated.
 	private OsuParser() {}
@@ -66,7 +105,7 @@ public class OsuParser {
 	 * adds the OsuFiles to a new OsuGroupList.
 	 * @param root the root directory (search has depth 1)
 	 */
-	public static void parseAllFiles(File root) {
+	public static synchronized void parseAllFiles(File root) {
 		// create a new OsuGroupList
 		OsuGroupList.create();
 
@@ -74,88 +113,295 @@ public class OsuParser {
 		parseDirectories(root.listFiles());
 	}
 
+	/**
+	 * Synchronizes the existing OsuGroupList with the OSU files in a root directory.
+	 * <p>
+	 * Only directories containing new, modified, or removed OSU files are parsed
+	 * again.  Song groups for directories that no longer exist are removed from
+	 * the list and the database.  The list should be re-initialized with
+	 * {@link OsuGroupList#init()} afterwards.
+	 * @param root the root directory (search has depth 1)
+	 * @return the number of directories added, updated, or removed
+	 */
+	public static synchronized int syncAllFiles(File root) {
+		OsuGroupList list = OsuGroupList.get();
+		list.reset();
+		Map<String, OsuGroupNode> groups = list.getDirectoryMap();
+		HashMap<String, HashMap<String, Long>> cachedDirs = getCachedDirectories();
+
+		// find new or modified directories
+		File[] dirs = root.listFiles();
+		if (dirs == null)
+			dirs = new File[0];
+		ArrayList<File> changedDirs = new ArrayList<File>();
+		ArrayList<OsuGroupNode> removedNodes = new ArrayList<OsuGroupNode>();
+		for (File dir : dirs) {
+			if (!dir.isDirectory())
+				continue;
+
+			OsuGroupNode node = groups.remove(dir.getName());
+			HashMap<String, Long> cached = cachedDirs.remove(dir.getName());
+			// also re-parse if the list and database are out of sync
+			if (isDirectoryModified(dir, cached) || (cached == null) != (node == null)) {
+				changedDirs.add(dir);
+				if (node != null)
+					removedNodes.add(node);
+			}
+		}
+
+		// remove deleted directories
+		HashSet<String> removedDirs = new HashSet<String>(groups.keySet());
+		removedDirs.addAll(cachedDirs.keySet());
+		for (String dirName : removedDirs)
+			OsuDB.delete(dirName);
+		removedNodes.addAll(groups.values());
+		list.removeSongGroups(removedNodes);
+
+		// parse new or modified directories
+		if (!changedDirs.isEmpty())
+			parseDirectories(changedDirs.toArray(new File[changedDirs.size()]));
+
+		return changedDirs.size() + removedDirs.size();
+	}
+
+	/**
+	 * Parses each directory in the given array that contains new or modified
+	 * OSU files, and returns the resulting song groups without adding them to
+	 * the OsuGroupList.
+	 * <p>
+	 * This does not report any parser progress, and is intended for use
+	 * outside of the loading screens.
+	 * @param dirs the array of directories to check
+	 * @return the list of song groups that were parsed
+	 */
+	public static synchronized List<ArrayList<OsuFile>> parseModifiedDirectories(File[] dirs) {
+		HashMap<String, HashMap<String, Long>> cachedDirs = getCachedDirectories();
+		ArrayList<File> changedDirs = new ArrayList<File>();
+		for (File dir : dirs) {
+			if (dir.isDirectory() && isDirectoryModified(dir, cachedDirs.get(dir.getName())))
+				changedDirs.add(dir);
+		}
+		return parseSongGroups(changedDirs.toArray(new File[changedDirs.size()]), false);
+	}
+
+	/**
+	 * Returns the cached last modified times from the database, grouped by
+	 * directory name: {dir} -> ({file} -> lastModified).
+	 */
+	private static HashMap<String, HashMap<String, Long>> getCachedDirectories() {
+		HashMap<String, HashMap<String, Long>> cachedDirs = new HashMap<String, HashMap<String, Long>>();
+		for (Map.Entry<String, Long> entry : OsuDB.getLastModifiedMap().entrySet()) {
+			String path = entry.getKey();
+			int index = path.indexOf('/');
+			String dirName = path.substring(0, index);
+			HashMap<String, Long> cached = cachedDirs.get(dirName);
+			if (cached == null) {
+				cached = new HashMap<String, Long>();
+				cachedDirs.put(dirName, cached);
+			}
+			cached.put(path.substring(index + 1), entry.getValue());
+		}
+		return cachedDirs;
+	}
+
+	/**
+	 * Returns whether the OSU files in a directory differ from their cached
+	 * entries.  Cached entries for files that no longer exist are removed
+	 * from the database.
+	 * @param dir the directory
+	 * @param cached the map of cached file names to last modified times,
+	 *               or null if none (entries are removed from this map)
+	 * @return true if any OSU files were added, modified, or removed
+	 */
+	private static boolean isDirectoryModified(File dir, HashMap<String, Long> cached) {
+		File[] files = dir.listFiles(OSU_FILE_FILTER);
+		if (files == null)
+			files = new File[0];
+		if (cached == null)
+			return (files.length > 0);
+
+		boolean changed = false;
+		for (File file : files) {
+			Long lastModified = cached.remove(file.getName());
+			if (lastModified == null || lastModified != file.lastModified())
+				changed = true;
+		}
+
+		// remove entries for deleted files
+		for (String file : cached.keySet()) {
+			OsuDB.delete(dir.getName(), file);
+			changed = true;
+		}
+		return changed;
+	}
+
 	/**
 	 * Invokes parser for each directory in the given array and
 	 * adds the OsuFiles to the existing OsuGroupList.
+	 * <p>
+	 * Directories are parsed concurrently, but song groups are always added
+	 * to the list in the order of the given array.
 	 * @param dirs the array of directories to parse
 	 * @return the last OsuGroupNode parsed, or null if none
 	 */
-	public static OsuGroupNode parseDirectories(File[] dirs) {
+	public static synchronized OsuGroupNode parseDirectories(File[] dirs) {
 		if (dirs == null)
 			return null;
 
+		// add group entries to OsuGroupList
+		OsuGroupNode lastNode = null;
+		for (ArrayList<OsuFile> osuFiles : parseSongGroups(dirs, true))
+			lastNode = OsuGroupList.get().addSongGroup(osuFiles);
+		return lastNode;
+	}
+
+	/**
+	 * Invokes parser for each directory in the given array, updates the
+	 * database, and returns the sorted song groups in the order of the array.
+	 * @param dirs the array of directories to parse
+	 * @param trackProgress whether to report parser progress
+	 * @return the list of non-empty song groups
+	 */
+	private static List<ArrayList<OsuFile>> parseSongGroups(File[] dirs, final boolean trackProgress) {
 		// progress tracking
-		currentDirectoryIndex = 0;
-		totalDirectories = dirs.length;
+		if (trackProgress) {
+			currentDirectoryIndex.set(0);
+			totalDirectories = dirs.length;
+		}
 
 		// get last modified map from database
-		Map<String, Long> map = OsuDB.getLastModifiedMap();
+		final Map<String, Long> map = OsuDB.getLastModifiedMap();
 
 		// parse directories
-		LinkedList<OsuFile> parsedOsuFiles = new LinkedList<OsuFile>();
-		OsuGroupNode lastNode = null;
-		for (File dir : dirs) {
-			currentDirectoryIndex++;
-			if (!dir.isDirectory())
-				continue;
-
-			// find all OSU files
-			File[] files = dir.listFiles(new FilenameFilter() {
+		ExecutorService executor = Executors.newFixedThreadPool(PARSER_THREADS);
+		List<Future<ParsedDirectory>> results = new ArrayList<Future<ParsedDirectory>>(dirs.length);
+		for (final File dir : dirs) {
+			results.add(executor.submit(new Callable<ParsedDirectory>() {
 				@Override
-				public boolean accept(File dir, String name) {
-					return name.toLowerCase().endsWith(".osu");
+				public ParsedDirectory call() {
+					try {
+						return parseDirectory(dir, map, trackProgress);
+					} finally {
+						if (trackProgress)
+							currentDirectoryIndex.incrementAndGet();
+					}
 				}
-			});
-			if (files.length < 1)
-				continue;
-
-			// create a new group entry
-			ArrayList<OsuFile> osuFiles = new ArrayList<OsuFile>();
-			for (File file : files) {
-				currentFile = file;
+			}));
+		}
+		executor.shutdown();
 
-				// check if beatmap is cached
-				String path = String.format("%s/%s", dir.getName(), file.getName());
-				if (map.containsKey(path)) {
-					// check last modified times
-					long lastModified = map.get(path);
-					if (lastModified == file.lastModified()) {
-						osuFiles.add(OsuDB.getOsuFile(dir, file));
-						continue;
-					} else
-						OsuDB.delete(dir.getName(), file.getName());
-				}
+		// collect results in directory order
+		LinkedList<OsuFile> parsedOsuFiles = new LinkedList<OsuFile>();
+		HashMap<String, OsuFile> cachedOsuFiles = new HashMap<String, OsuFile>();
+		ArrayList<ArrayList<OsuFile>> allOsuFiles = new ArrayList<ArrayList<OsuFile>>();
+		boolean interrupted = false;
+		for (int i = 0; i < dirs.length; i++) {
+			Future<ParsedDirectory> result = results.get(i);
+			ParsedDirectory parsed = null;
+			try {
+				// if interrupted, only keep directories that were already parsed
+				if (!interrupted || (result.isDone() && !result.isCancelled()))
+					parsed = result.get();
+			} catch (InterruptedException e) {
+				// stop parsing files (interrupted)
+				interrupted = true;
+				executor.shutdownNow();
+			} catch (ExecutionException e) {
+				ErrorHandler.error(String.format("Failed to parse directory '%s'.",
+						dirs[i].getAbsolutePath()), e.getCause(), false);
+			}
+			if (parsed == null)
+				continue;
 
-				// Parse hit objects only when needed to save time/memory.
-				// Change boolean to 'true' to parse them immediately.
-				OsuFile osu = parseFile(file, dir, osuFiles, false);
+			for (String file : parsed.staleFiles)
+				OsuDB.delete(dirs[i].getName(), file);
+			parsedOsuFiles.addAll(parsed.parsedOsuFiles);
+			cachedOsuFiles.putAll(parsed.cachedOsuFiles);
+			if (!parsed.osuFiles.isEmpty())  // add entry if non-empty
+				allOsuFiles.add(parsed.osuFiles);
+		}
 
-				if (osu != null)
-					parsedOsuFiles.add(osu);
-			}
-			if (!osuFiles.isEmpty()) {  // add entry if non-empty
-				osuFiles.trimToSize();
-				Collections.sort(osuFiles);
-				lastNode = OsuGroupList.get().addSongGroup(osuFiles);
-			}
+		// load cached entries from database
+		if (!cachedOsuFiles.isEmpty()) {
+			if (trackProgress)
+				updatingDatabase = true;
+			OsuDB.load(cachedOsuFiles);
+			if (trackProgress)
+				updatingDatabase = false;
+		}
 
-			// stop parsing files (interrupted)
-			if (Thread.interrupted())
-				break;
+		// sort song groups
+		for (ArrayList<OsuFile> osuFiles : allOsuFiles) {
+			osuFiles.trimToSize();
+			Collections.sort(osuFiles);
 		}
 
 		// clear string DB
-		stringdb = new HashMap<String, String>();
+		stringdb = new ConcurrentHashMap<String, String>();
 
 		// add entries to database
-		updatingDatabase = true;
+		if (trackProgress)
+			updatingDatabase = true;
 		OsuDB.insert(parsedOsuFiles);
-		updatingDatabase = false;
 
-		currentFile = null;
-		currentDirectoryIndex = -1;
-		totalDirectories = -1;
-		return lastNode;
+		if (trackProgress) {
+			updatingDatabase = false;
+			currentFile = null;
+			currentDirectoryIndex.set(-1);
+			totalDirectories = -1;
+		}
+		return allOsuFiles;
+	}
+
+	/**
+	 * Invokes parser for each OSU file in a directory.
+	 * Cached beatmaps are not parsed, and are instead returned with only
+	 * their file fields set.
+	 * <p>
+	 * This method may be called concurrently, and does not access the database.
+	 * @param dir the directory to parse
+	 * @param map the map of cached file paths to last modified times
+	 * @param trackProgress whether to report the current file being parsed
+	 * @return the parsing results
+	 */
+	private static ParsedDirectory parseDirectory(File dir, Map<String, Long> map, boolean trackProgress) {
+		ParsedDirectory parsed = new ParsedDirectory();
+		if (!dir.isDirectory())
+			return parsed;
+
+		// find all OSU files
+		File[] files = dir.listFiles(OSU_FILE_FILTER);
+		if (files == null || files.length < 1)
+			return parsed;
+
+		// create a new group entry
+		for (File file : files) {
+			if (trackProgress)
+				currentFile = file;
+
+			// check if beatmap is cached
+			String path = OsuDB.getPath(dir.getName(), file.getName());
+			Long lastModified = map.get(path);
+			if (lastModified != null) {
+				// check last modified times
+				if (lastModified == file.lastModified()) {
+					// add to cached beatmap list (loaded from the database later)
+					OsuFile osu = new OsuFile(file);
+					parsed.osuFiles.add(osu);
+					parsed.cachedOsuFiles.put(path, osu);
+					continue;
+				} else
+					parsed.staleFiles.add(file.getName());
+			}
+
+			// Parse hit objects only when needed to save time/memory.
+			// Change boolean to 'true' to parse them immediately.
+			OsuFile osu = parseFile(file, dir, parsed.osuFiles, false);
+
+			if (osu != null)
+				parsed.parsedOsuFiles.add(osu);
+		}
+		return parsed;
 	}
 
 	/**
@@ -542,14 +788,23 @@ public class OsuParser {
 
 	/**
 	 * Parses all hit objects in an OSU file.
+	 * Hit objects are loaded from the cache if possible, and otherwise are
+	 * parsed from the file and then cached.
 	 * @param osu the OsuFile to parse
 	 */
 	public static void parseHitObjects(OsuFile osu) {
 		if (osu.objects != null)  // already parsed
 			return;
 
-		osu.objects = new OsuHitObject[(osu.hitObjectCircle
-				+ osu.hitObjectSlider + osu.hitObjectSpinner)];
+		int count = osu.hitObjectCircle + osu.hitObjectSlider + osu.hitObjectSpinner;
+		OsuHitObject[] objects = OsuHitObjectCache.load(osu.getFile(), count);
+		if (objects != null) {
+			osu.objects = objects;
+			setComboInfo(osu);
+			return;
+		}
+
+		osu.objects = new OsuHitObject[count];
 
 		try (BufferedReader in = new BufferedReader(new FileReader(osu.getFile()))) {
 			String line = in.readLine();
@@ -565,12 +820,7 @@ public class OsuParser {
 				return;
 			}
 
-			// combo info
-			int comboIndex = 0;   // color index
-			int comboNumber = 1;  // combo number
-
 			int objectIndex = 0;
-			boolean first = true;
 			while ((line = in.readLine()) != null && objectIndex < osu.objects.length) {
 				line = line.trim();
 				if (!isValidLine(line))
@@ -586,33 +836,50 @@ public class OsuParser {
 				try {
 					// create a new OsuHitObject for each line
 					OsuHitObject hitObject = new OsuHitObject(line);
-
-					// set combo info
-					// - new combo: get next combo index, reset combo number
-					// - else:      maintain combo index, increase combo number
-					if (hitObject.isNewCombo() || first) {
-						int skip = (hitObject.isSpinner() ? 0 : 1) + hitObject.getComboSkip();
-						for (int i = 0; i < skip; i++) {
-							comboIndex = (comboIndex + 1) % osu.combo.length;
-							comboNumber = 1;
-						}
-						first = false;
-					}
-
-					hitObject.setComboIndex(comboIndex);
-					hitObject.setComboNumber(comboNumber++);
-
 					osu.objects[objectIndex++] = hitObject;
 				} catch (Exception e) {
 					Log.warn(String.format("Failed to read hit object '%s' for OsuFile '%s'.",
 							line, osu.toString()), e);
 				}
 			}
+
+			// cache the hit objects only if all of them were read
+			setComboInfo(osu);
+			if (objectIndex == osu.objects.length)
+				OsuHitObjectCache.save(osu.getFile(), osu.objects);
 		} catch (IOException e) {
 			ErrorHandler.error(String.format("Failed to read file '%s'.", osu.getFile().getAbsolutePath()), e, false);
 		}
 	}
 
+	/**
+	 * Sets the combo index and number of all hit objects in an OsuFile.
+	 * @param osu the OsuFile
+	 */
+	private static void setComboInfo(OsuFile osu) {
+		int comboIndex = 0;   // color index
+		int comboNumber = 1;  // combo number
+		boolean first = true;
+		for (OsuHitObject hitObject : osu.objects) {
+			if (hitObject == null)
+				break;
+
+			// - new combo: get next combo index, reset combo number
+			// - else:      maintain combo index, increase combo number
+			if (hitObject.isNewCombo() || first) {
+				int skip = (hitObject.isSpinner() ? 0 : 1) + hitObject.getComboSkip();
+				for (int i = 0; i < skip; i++) {
+					comboIndex = (comboIndex + 1) % osu.combo.length;
+					comboNumber = 1;
+				}
+				first = false;
+			}
+
+			hitObject.setComboIndex(comboIndex);
+			hitObject.setComboNumber(comboNumber++);
+		}
+	}
+
 	/**
 	 * Returns false if the line is too short or commented.
 	 */
@@ -660,10 +927,11 @@ public class OsuParser {
 	 * @return the completion percent [0, 100] or -1
 	 */
 	public static int getParserProgress() {
-		if (currentDirectoryIndex == -1 || totalDirectories == -1)
+		int index = currentDirectoryIndex.get(), total = totalDirectories;
+		if (index == -1 || total == -1)
 			return -1;
 
-		return currentDirectoryIndex * 100 / totalDirectories;
+		return (total == 0) ? 100 : index * 100 / total;
 	}
 
 	/**
@@ -678,11 +946,10 @@ public class OsuParser {
 	 * @return the string object
 	 */
 	public static String getDBString(String s) {
-		String DBString = stringdb.get(s);
-		if (DBString == null) {
-			stringdb.put(s, s);
-			return s;
-		} else
-			return DBString;
+		if (s == null)
+			return null;
+
+		String DBString = stringdb.putIfAbsent(s, s);
+		return (DBString == null) ? s : DBString;
 	}
 }
\ No newline at end of file
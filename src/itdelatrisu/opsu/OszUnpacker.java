@@ -46,7 +46,7 @@ public class OszUnpacker {
 	 * @return an array containing the new (unpacked) directories, or null
 	 *         if no OSZs found
 	 */
-	public static File[] unpackAllFiles(File root, File dest) {
+	public static synchronized File[] unpackAllFiles(File root, File dest) {
 		List<File> dirs = new ArrayList<File>();
 
 		// find all OSZ files
@@ -68,9 +68,11 @@ public class OszUnpacker {
 			File songDir = new File(dest, dirName);
 			if (!songDir.isDirectory()) {
 				songDir.mkdir();
-				unzip(file, songDir);
-				file.delete();  // delete the OSZ when finished
-				dirs.add(songDir);
+				if (unzip(file, songDir)) {
+					file.delete();  // delete the OSZ when finished
+					dirs.add(songDir);
+				} else
+					Utils.deleteDirectory(songDir);  // try again next time
 			}
 		}
 
@@ -83,14 +85,17 @@ public class OszUnpacker {
 	 * Extracts the contents of a ZIP archive to a destination.
 	 * @param file the ZIP archive
 	 * @param dest the destination directory
+	 * @return true if the archive was extracted, false otherwise
 	 */
-	private static void unzip(File file, File dest) {
+	private static boolean unzip(File file, File dest) {
 		try {
 			ZipFile zipFile = new ZipFile(file);
 			zipFile.extractAll(dest.getAbsolutePath());
+			return true;
 		} catch (ZipException e) {
 			ErrorHandler.error(String.format("Failed to unzip file %s to dest %s.",
 					file.getAbsolutePath(), dest.getAbsolutePath()), e, false);
+			return false;
 		}
 	}
 
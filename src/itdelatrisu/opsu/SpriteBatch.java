@@ -0,0 +1,202 @@
+/*
+ * opsu! - an open-source osu! client
+ * Copyright (C) 2014, 2015 Jeffrey Han
+ *
+ * opsu! is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * opsu! is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with opsu!.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package itdelatrisu.opsu;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.newdawn.slick.Color;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.opengl.Texture;
+
+/**
+ * Batches image draws that share a texture into a single draw call.
+ * <p>
+ * Between {@link #begin()} and {@link #end()}, all {@link Image} draws are
+ * queued instead of drawn immediately, and are flushed when the texture or
+ * blend function changes, when the batch is full, or when the outermost
+ * batch ends.  Batches may be nested.  Any other drawing inside a batch
+ * (shapes, fonts, or raw OpenGL calls) must call {@link #flush()} first.
+ */
+public class SpriteBatch {
+	/** Maximum number of sprites per draw call. */
+	private static final int MAX_SPRITES = 1024;
+
+	/** Number of floats per vertex (x, y, u, v, r, g, b, a). */
+	private static final int VERTEX_SIZE = 8;
+
+	/** Vertex data. */
+	private static final FloatBuffer vertices = BufferUtils.createFloatBuffer(MAX_SPRITES * 4 * VERTEX_SIZE);
+
+	/** Number of queued sprites. */
+	private static int count = 0;
+
+	/** Texture of the queued sprites. */
+	private static Texture texture;
+
+	/** Number of batches in progress (batches may be nested). */
+	private static int depth = 0;
+
+	/** Current blend function factors. */
+	private static int srcBlend = GL11.GL_SRC_ALPHA, dstBlend = GL11.GL_ONE_MINUS_SRC_ALPHA;
+
+	/** Queues image draws while a batch is in progress. */
+	private static final Image.Batch batch = new Image.Batch() {
+		@Override
+		public void draw(Image image, float x, float y, float width, float height, Color filter) {
+			queue(image, x, y, width, height, filter);
+		}
+	};
+
+	// This class should not be instantiated.
+	private SpriteBatch() {}
+
+	/**
+	 * Starts a batch.
+	 */
+	public static void begin() {
+		if (depth++ == 0)
+			Image.setBatch(batch);
+	}
+
+	/**
+	 * Ends the batch.
+	 * If this is the outermost batch, all queued sprites are drawn.
+	 */
+	public static void end() {
+		if (depth == 0 || --depth > 0)
+			return;
+
+		Image.setBatch(null);
+		flush();
+	}
+
+	/**
+	 * Sets the blend function, flushing the batch if it changes.
+	 * @param src the source blend factor
+	 * @param dst the destination blend factor
+	 */
+	public static void setBlendFunc(int src, int dst) {
+		if (src != srcBlend || dst != dstBlend) {
+			flush();
+			srcBlend = src;
+			dstBlend = dst;
+		}
+		GL11.glBlendFunc(src, dst);  // always set: the blend function may have been changed elsewhere
+	}
+
+	/**
+	 * Restores the default blend function.
+	 */
+	public static void resetBlendFunc() { setBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA); }
+
+	/**
+	 * Draws an image based on its center.
+	 * @param img the image
+	 * @param x the center x coordinate
+	 * @param y the center y coordinate
+	 * @param filter the color to filter with when drawing
+	 */
+	public static void drawCentered(Image img, float x, float y, Color filter) {
+		img.draw(x - (img.getWidth() / 2f), y - (img.getHeight() / 2f), img.getWidth(), img.getHeight(), filter);
+	}
+
+	/**
+	 * Queues an image draw.
+	 * The image is rotated about its center of rotation, as in {@link Image#draw(float, float, float, float, Color)}.
+	 * @param img the image
+	 * @param x the top-left x coordinate
+	 * @param y the top-left y coordinate
+	 * @param width the width to draw the image at
+	 * @param height the height to draw the image at
+	 * @param filter the color to filter with when drawing (null for white)
+	 */
+	private static void queue(Image img, float x, float y, float width, float height, Color filter) {
+		Texture tex = img.getTexture();
+		if (tex != texture || count == MAX_SPRITES) {
+			flush();
+			texture = tex;
+		}
+
+		// texture coordinates
+		float u1 = img.getTextureOffsetX(), v1 = img.getTextureOffsetY();
+		float u2 = u1 + img.getTextureWidth(), v2 = v1 + img.getTextureHeight();
+
+		// color
+		if (filter == null)
+			filter = Color.white;
+		float r = filter.r, g = filter.g, b = filter.b, a = filter.a * img.getAlpha();
+
+		// corners, rotated about the center of rotation
+		float angle = img.getRotation();
+		if (angle == 0f) {
+			putVertex(x, y, u1, v1, r, g, b, a);
+			putVertex(x, y + height, u1, v2, r, g, b, a);
+			putVertex(x + width, y + height, u2, v2, r, g, b, a);
+			putVertex(x + width, y, u2, v1, r, g, b, a);
+		} else {
+			double rad = Math.toRadians(angle);
+			float cos = (float) Math.cos(rad), sin = (float) Math.sin(rad);
+			float cx = x + img.getCenterOfRotationX(), cy = y + img.getCenterOfRotationY();
+			float left = x - cx, top = y - cy, right = left + width, bottom = top + height;
+			putVertex(cx + left * cos - top * sin, cy + left * sin + top * cos, u1, v1, r, g, b, a);
+			putVertex(cx + left * cos - bottom * sin, cy + left * sin + bottom * cos, u1, v2, r, g, b, a);
+			putVertex(cx + right * cos - bottom * sin, cy + right * sin + bottom * cos, u2, v2, r, g, b, a);
+			putVertex(cx + right * cos - top * sin, cy + right * sin + top * cos, u2, v1, r, g, b, a);
+		}
+		count++;
+	}
+
+	/**
+	 * Adds a vertex to the buffer.
+	 */
+	private static void putVertex(float x, float y, float u, float v, float r, float g, float b, float a) {
+		vertices.put(x).put(y).put(u).put(v).put(r).put(g).put(b).put(a);
+	}
+
+	/**
+	 * Draws all queued sprites.
+	 */
+	public static void flush() {
+		if (count == 0)
+			return;
+
+		texture.bind();
+		vertices.flip();
+		int stride = VERTEX_SIZE * 4;
+		GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+		GL11.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+		GL11.glEnableClientState(GL11.GL_COLOR_ARRAY);
+		vertices.position(0);
+		GL11.glVertexPointer(2, stride, vertices);
+		vertices.position(2);
+		GL11.glTexCoordPointer(2, stride, vertices);
+		vertices.position(4);
+		GL11.glColorPointer(4, stride, vertices);
+		GL11.glDrawArrays(GL11.GL_QUADS, 0, count * 4);
+		GL11.glDisableClientState(GL11.GL_COLOR_ARRAY);
+		GL11.glDisableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+		GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+		GL11.glColor4f(1f, 1f, 1f, 1f);  // current color is undefined after using a color array
+
+		vertices.clear();
+		count = 0;
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * opsu! - an open-source osu! client
+ * Copyright (C) 2014, 2015 Jeffrey Han
+ *
+ * opsu! is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * opsu! is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with opsu!.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package itdelatrisu.opsu;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import org.lwjgl.opengl.GL11;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.ImageBuffer;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.opengl.LoadableImageData;
+import org.newdawn.slick.util.Log;
+
+/**
+ * Texture atlas, containing many small images packed into a single texture.
+ * <p>
+ * Images are sorted by decreasing height and packed left to right into rows
+ * ("shelves").  Images that are too large, or that do not fit into the
+ * maximum texture size, are left out of the atlas.
+ */
+public class TextureAtlas {
+	/** Maximum width and height of the atlas texture. */
+	private static final int MAX_ATLAS_SIZE = 4096;
+
+	/** Maximum width and height of an image to include in the atlas. */
+	private static final int MAX_IMAGE_SIZE = 512;
+
+	/** Transparent padding between images (prevents bleeding when filtering). */
+	private static final int PADDING = 2;
+
+	/** Decoded image data to be packed. */
+	private static class Entry {
+		/** The image file name. */
+		private String name;
+
+		/** The image dimensions. */
+		private int width, height;
+
+		/** The width of each row in the pixel data. */
+		private int texWidth;
+
+		/** The RGBA pixel data. */
+		private ByteBuffer data;
+
+		/** The position in the atlas. */
+		private int x, y;
+	}
+
+	/** The atlas image. */
+	private Image atlas;
+
+	/** Sub-images of the atlas, by file name. */
+	private HashMap<String, Image> images = new HashMap<String, Image>();
+
+	/**
+	 * Creates a texture atlas from image files.
+	 * @param names the image file names
+	 * @return the atlas, or null if no images could be packed
+	 */
+	public static TextureAtlas create(Collection<String> names) {
+		// decode images (in parallel)
+		List<String> nameList = new ArrayList<String>(names);
+		List<LoadableImageData> decoded = ImageLoader.decodeAll(nameList, true);
+		List<Entry> entries = new ArrayList<Entry>();
+		for (int i = 0; i < decoded.size(); i++) {
+			Entry entry = createEntry(nameList.get(i), decoded.get(i));
+			if (entry != null)
+				entries.add(entry);
+		}
+		if (entries.size() < 2)
+			return null;
+
+		// pack images into shelves, tallest first
+		Collections.sort(entries, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry a, Entry b) { return Integer.compare(b.height, a.height); }
+		});
+		int maxSize = Math.min(MAX_ATLAS_SIZE, GL11.glGetInteger(GL11.GL_MAX_TEXTURE_SIZE));
+		long area = 0;
+		int maxWidth = 0;
+		for (Entry entry : entries) {
+			area += (long) (entry.width + PADDING) * (entry.height + PADDING);
+			maxWidth = Math.max(maxWidth, entry.width + PADDING);
+		}
+		int width = Math.min(maxSize, Utils.getPowerOfTwo(Math.max(maxWidth, (int) Math.ceil(Math.sqrt(area)))));
+		int shelfX = 0, shelfY = 0, shelfHeight = 0;
+		List<Entry> packed = new ArrayList<Entry>(entries.size());
+		for (Entry entry : entries) {
+			if (shelfX + entry.width + PADDING > width) {  // start a new shelf
+				shelfY += shelfHeight;
+				shelfX = shelfHeight = 0;
+			}
+			if (shelfY + entry.height + PADDING > maxSize)  // no room left
+				continue;
+			entry.x = shelfX;
+			entry.y = shelfY;
+			shelfX += entry.width + PADDING;
+			shelfHeight = Math.max(shelfHeight, entry.height + PADDING);
+			packed.add(entry);
+		}
+		if (packed.size() < 2)
+			return null;
+		int height = Utils.getPowerOfTwo(shelfY + shelfHeight);
+
+		// copy the images into the atlas
+		ImageBuffer buffer = new ImageBuffer(width, height);
+		byte[] rgba = buffer.getRGBA();
+		int stride = buffer.getTexWidth() * 4;
+		for (Entry entry : packed) {
+			for (int row = 0; row < entry.height; row++) {
+				entry.data.position(row * entry.texWidth * 4);
+				entry.data.get(rgba, (entry.y + row) * stride + entry.x * 4, entry.width * 4);
+			}
+		}
+
+		TextureAtlas textureAtlas = new TextureAtlas();
+		textureAtlas.atlas = buffer.getImage(Image.FILTER_LINEAR);
+		for (Entry entry : packed)
+			textureAtlas.images.put(entry.name, textureAtlas.atlas.getSubImage(entry.x, entry.y, entry.width, entry.height));
+		return textureAtlas;
+	}
+
+	/**
+	 * Creates an atlas entry from decoded image data.
+	 * @param name the image file name
+	 * @param imageData the decoded image data (null if decoding failed)
+	 * @return the entry, or null if the image cannot be included in an atlas
+	 */
+	private static Entry createEntry(String name, LoadableImageData imageData) {
+		if (imageData == null || imageData.getDepth() != 32 ||
+		    imageData.getWidth() > MAX_IMAGE_SIZE || imageData.getHeight() > MAX_IMAGE_SIZE)
+			return null;
+
+		Entry entry = new Entry();
+		entry.name = name;
+		entry.width = imageData.getWidth();
+		entry.height = imageData.getHeight();
+		entry.texWidth = imageData.getTexWidth();
+		entry.data = imageData.getImageBufferData();
+		return entry;
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private TextureAtlas() {}
+
+	/**
+	 * Returns the atlas image for a file name.
+	 * @param name the image file name
+	 * @return a sub-image of the atlas, or null if the image is not in the atlas
+	 */
+	public Image getImage(String name) { return images.get(name); }
+
+	/**
+	 * Returns the atlas images for a list of file names.
+	 * @param names the image file names
+	 * @return sub-images of the atlas, or null unless all of the images are in the atlas
+	 */
+	public Image[] getImages(List<String> names) {
+		Image[] list = new Image[names.size()];
+		for (int i = 0; i < list.length; i++) {
+			if ((list[i] = images.get(names.get(i))) == null)
+				return null;
+		}
+		return list;
+	}
+
+	/**
+	 * Returns whether or not an image (or a copy of it) belongs to the atlas.
+	 * Such images should not be destroyed individually.
+	 * @param img the image
+	 */
+	public boolean contains(Image img) { return img.getTexture() == atlas.getTexture(); }
+
+	/**
+	 * Destroys the atlas texture, invalidating all of its images.
+	 */
+	public void destroy() {
+		try {
+			atlas.destroy();
+		} catch (SlickException e) {
+			Log.warn("Failed to destroy texture atlas.", e);
+		}
+		images.clear();
+	}
+}
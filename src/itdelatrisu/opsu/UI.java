@@ -18,9 +18,6 @@
 
 package itdelatrisu.opsu;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-
 import itdelatrisu.opsu.audio.SoundController;
 
 import org.newdawn.slick.Animation;
@@ -45,10 +42,68 @@ public class UI {
 	/** Cursor rotation angle. */
 	private static float cursorAngle = 0f;
 
+	/** Fixed-capacity ring buffer of cursor locations, oldest first. */
+	private static class CursorTrail {
+		/** Maximum number of points (the oldest points are overwritten when full). */
+		private static final int CAPACITY = 1024;
+
+		/** The point coordinates. */
+		private final int[] x = new int[CAPACITY], y = new int[CAPACITY];
+
+		/** The index of the oldest point. */
+		private int start = 0;
+
+		/** The number of points. */
+		private int size = 0;
+
+		/**
+		 * Adds a point, overwriting the oldest point if full.
+		 */
+		public void add(int px, int py) {
+			int i = (start + size) % CAPACITY;
+			x[i] = px;
+			y[i] = py;
+			if (size < CAPACITY)
+				size++;
+			else
+				start = (start + 1) % CAPACITY;
+		}
+
+		/**
+		 * Removes the oldest points.
+		 * @param n the number of points to remove
+		 */
+		public void remove(int n) {
+			n = Math.min(n, size);
+			start = (start + n) % CAPACITY;
+			size -= n;
+		}
+
+		/**
+		 * Removes all points.
+		 */
+		public void clear() { start = size = 0; }
+
+		/**
+		 * Returns the number of points.
+		 */
+		public int size() { return size; }
+
+		/**
+		 * Returns the x coordinate of a point.
+		 * @param i the point index (0 is the oldest)
+		 */
+		public int getX(int i) { return x[(start + i) % CAPACITY]; }
+
+		/**
+		 * Returns the y coordinate of a point.
+		 * @param i the point index (0 is the oldest)
+		 */
+		public int getY(int i) { return y[(start + i) % CAPACITY]; }
+	}
+
 	/** Stores all previous cursor locations to display a trail. */
-	private static LinkedList<Integer>
-		cursorX = new LinkedList<Integer>(),
-		cursorY = new LinkedList<Integer>();
+	private static CursorTrail cursorTrailPoints = new CursorTrail();
 
 	/** Time to show volume image, in milliseconds. */
 	private static final int VOLUME_DISPLAY_TIME = 1500;
@@ -189,59 +244,51 @@ public class UI {
 			lastX = mouseX;
 			lastY = mouseY;
 
-			removeCount = (cursorX.size() / (6 * FPSmod)) + 1;
+			removeCount = (cursorTrailPoints.size() / (6 * FPSmod)) + 1;
 		} else {
 			// old style: sample one point at a time
-			cursorX.add(mouseX);
-			cursorY.add(mouseY);
+			cursorTrailPoints.add(mouseX, mouseY);
 
 			int max = 10 * FPSmod;
-			if (cursorX.size() > max)
-				removeCount = cursorX.size() - max;
+			if (cursorTrailPoints.size() > max)
+				removeCount = cursorTrailPoints.size() - max;
 		}
 
-		// remove points from the lists
-		for (int i = 0; i < removeCount && !cursorX.isEmpty(); i++) {
-			cursorX.remove();
-			cursorY.remove();
-		}
+		// remove points from the trail
+		cursorTrailPoints.remove(removeCount);
 
 		// draw a fading trail
 		float alpha = 0f;
-		float t = 2f / cursorX.size();
-		Iterator<Integer> iterX = cursorX.iterator();
-		Iterator<Integer> iterY = cursorY.iterator();
-		while (iterX.hasNext()) {
-			int cx = iterX.next();
-			int cy = iterY.next();
+		int trailSize = cursorTrailPoints.size();
+		float t = 2f / trailSize;
+		SpriteBatch.begin();
+		for (int i = 0; i < trailSize; i++) {
 			alpha += t;
 			cursorTrail.setAlpha(alpha);
-//			if (cx != x || cy != y)
-				cursorTrail.drawCentered(cx, cy);
+			SpriteBatch.drawCentered(cursorTrail, cursorTrailPoints.getX(i), cursorTrailPoints.getY(i), Color.white);
 		}
-		cursorTrail.drawCentered(mouseX, mouseY);
+		cursorTrail.setAlpha(1f);
+		SpriteBatch.drawCentered(cursorTrail, mouseX, mouseY, Color.white);
+		SpriteBatch.end();
 
 		// increase the cursor size if pressed
-		final float scale = 1.25f;
+		float scale = 1f;
 		int state = game.getCurrentStateID();
 		if (((state == Opsu.STATE_GAME || state == Opsu.STATE_GAMEPAUSEMENU) && Utils.isGameKeyPressed()) ||
 		    ((input.isMouseButtonDown(Input.MOUSE_LEFT_BUTTON) || input.isMouseButtonDown(Input.MOUSE_RIGHT_BUTTON)) &&
-		    !(state == Opsu.STATE_GAME && Options.isMouseDisabled()))) {
-			cursor = cursor.getScaledCopy(scale);
-			if (newStyle)
-				cursorMiddle = cursorMiddle.getScaledCopy(scale);
-		}
+		    !(state == Opsu.STATE_GAME && Options.isMouseDisabled())))
+			scale = 1.25f;
 
 		// draw the other components
 		if (newStyle)
 			cursor.setRotation(cursorAngle);
-		cursor.drawCentered(mouseX, mouseY);
+		Utils.drawCentered(cursor, mouseX, mouseY, scale, Color.white);
 		if (newStyle)
-			cursorMiddle.drawCentered(mouseX, mouseY);
+			Utils.drawCentered(cursorMiddle, mouseX, mouseY, scale, Color.white);
 	}
 
 	/**
-	 * Adds all points between (x1, y1) and (x2, y2) to the cursor point lists.
+	 * Adds all points between (x1, y1) and (x2, y2) to the cursor trail.
 	 * @author http://rosettacode.org/wiki/Bitmap/Bresenham's_line_algorithm#Java
 	 */
 	private static void addCursorPoints(int x1, int y1, int x2, int y2) {
@@ -259,8 +306,7 @@ public class UI {
 		if (dy <= dx) {
 			for (int i = 0; ; i++) {
 				if (i == k) {
-					cursorX.add(x1);
-					cursorY.add(y1);
+					cursorTrailPoints.add(x1, y1);
 					i = 0;
 				}
 				if (x1 == x2)
@@ -275,8 +321,7 @@ public class UI {
 		} else {
 			for (int i = 0; ; i++) {
 				if (i == k) {
-					cursorX.add(x1);
-					cursorY.add(y1);
+					cursorTrailPoints.add(x1, y1);
 					i = 0;
 				}
 				if (y1 == y2)
@@ -310,8 +355,7 @@ public class UI {
 		GameImage.CURSOR_TRAIL.destroySkinImage();
 		cursorAngle = 0f;
 		lastX = lastY = -1;
-		cursorX.clear();
-		cursorY.clear();
+		cursorTrailPoints.clear();
 		GameImage.CURSOR.getImage().setRotation(0f);
 	}
 
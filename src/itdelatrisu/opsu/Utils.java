@@ -45,6 +45,7 @@ import org.lwjgl.opengl.GL11;
 import org.newdawn.slick.Animation;
 import org.newdawn.slick.Color;
 import org.newdawn.slick.GameContainer;
+import org.newdawn.slick.Image;
 import org.newdawn.slick.Input;
 import org.newdawn.slick.SlickException;
 import org.newdawn.slick.UnicodeFont;
@@ -179,10 +180,12 @@ public class Utils {
 
 		// initialize game images
 		GameImage.init(width, height);
+		List<GameImage> preload = new ArrayList<GameImage>();
 		for (GameImage img : GameImage.values()) {
 			if (img.isPreload())
-				img.setDefaultImage();
+				preload.add(img);
 		}
+		GameImage.setDefaultImages(preload);
 
 		// initialize game mods
 		GameMod.init(width, height);
@@ -207,6 +210,41 @@ public class Utils {
 		anim.draw(x - (anim.getWidth() / 2f), y - (anim.getHeight() / 2f));
 	}
 
+	/**
+	 * Draws a scaled image based on its center.
+	 * Unlike {@link Image#getScaledCopy(float)}, this does not create a new image.
+	 * @param img the image to draw
+	 * @param x the center x coordinate
+	 * @param y the center y coordinate
+	 * @param scale the scale to apply
+	 * @param filter the color to filter with when drawing
+	 */
+	public static void drawCentered(Image img, float x, float y, float scale, Color filter) {
+		drawScaled(img, x - (img.getWidth() * scale / 2f), y - (img.getHeight() * scale / 2f), scale, filter);
+	}
+
+	/**
+	 * Draws a scaled image, rotated about its scaled center.
+	 * Unlike {@link Image#getScaledCopy(float)}, this does not create a new image.
+	 * Like any image draw, this is queued if a {@link SpriteBatch} is in progress.
+	 * @param img the image to draw
+	 * @param x the top-left x coordinate
+	 * @param y the top-left y coordinate
+	 * @param scale the scale to apply
+	 * @param filter the color to filter with when drawing
+	 */
+	public static void drawScaled(Image img, float x, float y, float scale, Color filter) {
+		float width = img.getWidth() * scale, height = img.getHeight() * scale;
+		if (img.getRotation() == 0f || scale == 1f)
+			img.draw(x, y, width, height, filter);
+		else {
+			float centerX = img.getCenterOfRotationX(), centerY = img.getCenterOfRotationY();
+			img.setCenterOfRotation(width / 2f, height / 2f);
+			img.draw(x, y, width, height, filter);
+			img.setCenterOfRotation(centerX, centerY);
+		}
+	}
+
 	/**
 	 * Returns a bounded value for a base value and displacement.
 	 * @param base the initial value
@@ -257,6 +295,17 @@ public class Utils {
 		return val;
 	}
 
+	/**
+	 * Returns the smallest power of two greater than or equal to a value.
+	 * @param n the value
+	 */
+	public static int getPowerOfTwo(int n) {
+		int p = 1;
+		while (p < n)
+			p *= 2;
+		return p;
+	}
+
 	/**
 	 * Returns true if a game input key is pressed (mouse/keyboard left/right).
 	 * @return true if pressed
@@ -443,7 +492,7 @@ public class Utils {
 	 * deletes the directory itself.
 	 * @param dir the directory to delete
 	 */
-	private static void deleteDirectory(File dir) {
+	public static void deleteDirectory(File dir) {
 		if (dir == null || !dir.isDirectory())
 			return;
 
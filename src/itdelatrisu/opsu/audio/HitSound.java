@@ -79,8 +79,8 @@ public enum HitSound implements SoundController.SoundComponent {
 	/** The file name. */
 	private String filename;
 
-	/** The Clip associated with the hit sound. */
-	private HashMap<SampleSet, MultiClip> clips;
+	/** The samples associated with the hit sound. */
+	private HashMap<SampleSet, SoundSample> samples;
 
 	/** Total number of hit sounds. */
 	public static final int SIZE = values().length;
@@ -91,7 +91,7 @@ public enum HitSound implements SoundController.SoundComponent {
 	 */
 	HitSound(String filename) {
 		this.filename = filename;
-		this.clips = new HashMap<SampleSet, MultiClip>();
+		this.samples = new HashMap<SampleSet, SoundSample>();
 	}
 
 	/**
@@ -101,17 +101,17 @@ public enum HitSound implements SoundController.SoundComponent {
 	public String getFileName() { return filename; }
 
 	@Override
-	public MultiClip getClip() {
-		return (currentSampleSet != null) ? clips.get(currentSampleSet) : null;
+	public SoundSample getSample() {
+		return (currentSampleSet != null) ? samples.get(currentSampleSet) : null;
 	}
 
 	/**
-	 * Sets the hit sound Clip for the sample type.
+	 * Sets the hit sound sample for the sample type.
 	 * @param s the sample set
-	 * @param clip the Clip
+	 * @param sample the sample
 	 */
-	public void setClip(SampleSet s, MultiClip clip) {
-		clips.put(s, clip);
+	public void setSample(SampleSet s, SoundSample sample) {
+		samples.put(s, sample);
 	}
 
 	/**
@@ -26,6 +26,15 @@ import itdelatrisu.opsu.OsuParser;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.openal.AL;
@@ -34,20 +43,39 @@ import org.newdawn.slick.Music;
 import org.newdawn.slick.MusicListener;
 import org.newdawn.slick.SlickException;
 import org.newdawn.slick.openal.Audio;
+import org.newdawn.slick.openal.OpenALStreamPlayer;
 import org.newdawn.slick.openal.SoundStore;
 
 /**
  * Controller for all music.
+ * <p>
+ * Tracks are loaded on a single background thread.  Changing tracks cancels
+ * any loads that have not started yet, and loads that have been superseded
+ * by the time they finish are discarded.  Previews of nearby tracks can be
+ * decoded ahead of time (see {@link PreviewCache}) on the same thread, so
+ * that they start playing immediately.
  */
 public class MusicController {
 	/** The current music track. */
-	private static Music player;
+	private static volatile Music player;
 
 	/** The last OsuFile passed to play(). */
 	private static OsuFile lastOsu;
 
-	/** Thread for loading tracks. */
-	private static Thread trackLoader;
+	/** Thread for loading tracks and previews. */
+	private static ExecutorService executor;
+
+	/** The pending track load (null if none). */
+	private static Future<?> trackLoader;
+
+	/** The pending preview loads. */
+	private static List<Future<?>> previewLoaders = new ArrayList<Future<?>>();
+
+	/** The number of track changes, used to discard superseded track loads. */
+	private static final AtomicInteger trackChanges = new AtomicInteger();
+
+	/** Lock held while the current track is changed. */
+	private static final Object trackLock = new Object();
 
 	/** Whether or not the current track has ended. */
 	private static boolean trackEnded;
@@ -74,19 +102,17 @@ public class MusicController {
 	public static void play(final OsuFile osu, final boolean loop, final boolean preview) {
 		// new track: load and play
 		if (lastOsu == null || !osu.audioFilename.equals(lastOsu.audioFilename)) {
-			reset();
-			System.gc();
+			final int trackChange = changeTrack();
 
 			switch (OsuParser.getExtension(osu.audioFilename.getName())) {
 			case "ogg":
 			case "mp3":
-				trackLoader = new Thread() {
+				trackLoader = getExecutor().submit(new Runnable() {
 					@Override
 					public void run() {
-						loadTrack(osu.audioFilename, (preview) ? osu.previewTime : 0, loop);
+						loadTrack(osu.audioFilename, (preview) ? osu.previewTime : 0, loop, trackChange);
 					}
-				};
-				trackLoader.start();
+				});
 				break;
 			default:
 				break;
@@ -101,34 +127,144 @@ public class MusicController {
 	}
 
 	/**
-	 * Loads a track and plays it.
+	 * Decodes the previews of tracks ahead of time, in the background.
+	 * Previews that have not been decoded by the next track change are skipped.
+	 * @param osuFiles the OsuFiles whose previews will likely be played soon
+	 */
+	public static void loadPreviews(List<OsuFile> osuFiles) {
+		synchronized (trackLock) {
+			for (Iterator<Future<?>> iter = previewLoaders.iterator(); iter.hasNext();) {
+				if (iter.next().isDone())
+					iter.remove();
+			}
+			for (final OsuFile osu : osuFiles) {
+				final File file = osu.audioFilename;
+				if (file == null || osu.previewTime <= 0 || PreviewCache.contains(file, osu.previewTime))
+					continue;
+				switch (OsuParser.getExtension(file.getName())) {
+				case "ogg":
+				case "mp3":
+					previewLoaders.add(getExecutor().submit(new Runnable() {
+						@Override
+						public void run() { PreviewCache.load(file, osu.previewTime); }
+					}));
+					break;
+				default:
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops the current track and cancels all pending loads, before a new track is played.
+	 * @return the track change number
+	 */
+	private static int changeTrack() {
+		synchronized (trackLock) {
+			int trackChange = cancelLoads();
+			stop();
+			player = null;
+			resetState();
+			return trackChange;
+		}
+	}
+
+	/**
+	 * Cancels all pending track and preview loads, and discards any running track load.
+	 * @return the track change number
+	 */
+	private static int cancelLoads() {
+		synchronized (trackLock) {
+			int trackChange = trackChanges.incrementAndGet();
+			if (trackLoader != null)
+				trackLoader.cancel(false);
+			trackLoader = null;
+			for (Future<?> f : previewLoaders)
+				f.cancel(false);
+			previewLoaders.clear();
+			return trackChange;
+		}
+	}
+
+	/**
+	 * Resets the state of the current track.
+	 */
+	private static void resetState() {
+		lastOsu = null;
+		trackEnded = false;
+		themePlaying = false;
+		pauseTime = 0f;
+		trackDimmed = false;
+	}
+
+	/**
+	 * Loads a track and plays it, unless the track has been changed since.
 	 * @param file the audio file
 	 * @param position the track position (in ms)
 	 * @param loop whether or not to loop the track
+	 * @param trackChange the track change number
 	 */
-	private static void loadTrack(File file, int position, boolean loop) {
+	private static void loadTrack(File file, int position, boolean loop, int trackChange) {
+		if (trackChange != trackChanges.get())
+			return;
+
 		try {
-			player = new Music(file.getPath(), true);
-			player.addListener(new MusicListener() {
+			// no OpenAL resources are allocated until the track is played
+			Music music = new Music(file.getPath(), true);
+			music.addListener(new MusicListener() {
 				@Override
 				public void musicEnded(Music music) { trackEnded = true; }
 
 				@Override
 				public void musicSwapped(Music music, Music newMusic) {}
 			});
-			playAt(position, loop);
+			synchronized (trackLock) {
+				if (trackChange != trackChanges.get())
+					return;
+				player = music;
+				playAt(position, loop, (position > 0) ? PreviewCache.get(file, position) : null);
+			}
 		} catch (Exception e) {
 			ErrorHandler.error(String.format("Could not play track '%s'.", file.getName()), e, false);
 		}
 	}
 
+	/**
+	 * Returns the track and preview loading thread, creating it if necessary.
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "TrackLoader");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return executor;
+	}
+
 	/**
 	 * Plays the current track at the given position.
 	 * @param position the track position (in ms)
 	 * @param loop whether or not to loop the track
 	 */
 	public static void playAt(final int position, final boolean loop) {
-		if (trackExists()) {
+		playAt(position, loop, null);
+	}
+
+	/**
+	 * Plays the current track at the given position.
+	 * @param position the track position (in ms)
+	 * @param loop whether or not to loop the track
+	 * @param preview the decoded audio at the position (or null if none)
+	 */
+	private static void playAt(int position, boolean loop, byte[] preview) {
+		Music player = MusicController.player;
+		if (player != null) {
 			setVolume(Options.getMusicVolume() * Options.getMasterVolume());
 			trackEnded = false;
 			pauseTime = 0f;
@@ -136,8 +272,12 @@ public class MusicController {
 				player.loop();
 			else
 				player.play();
-			if (position >= 0)
-				player.setPosition(position / 1000f);
+			if (position >= 0) {
+				if (preview != null)
+					player.setPosition(position / 1000f, preview);
+				else
+					player.setPosition(position / 1000f);
+			}
 		}
 	}
 
@@ -145,7 +285,8 @@ public class MusicController {
 	 * Returns true if a track is being loaded.
 	 */
 	public static boolean isTrackLoading() {
-		return (trackLoader != null && trackLoader.isAlive());
+		Future<?> loader = trackLoader;
+		return (loader != null && !loader.isDone());
 	}
 
 	/**
@@ -242,6 +383,16 @@ public class MusicController {
 			return 0;
 	}
 
+	/**
+	 * Returns the jitter of the track position clock, i.e. the average difference
+	 * between the OpenAL source offset and the smoothed position, in ms.
+	 * If no track is being streamed, 0 will be returned.
+	 */
+	public static float getClockJitter() {
+		OpenALStreamPlayer stream = SoundStore.get().getStream();
+		return (stream == null) ? 0f : (float) (stream.getClockJitter() * 1000);
+	}
+
 	/**
 	 * Seeks to a position in the current track.
 	 */
@@ -317,26 +468,21 @@ public class MusicController {
 	public static void reset() {
 		stop();
 
-		// interrupt the track loading
-		// TODO: Not sure if the interrupt does anything, and the join kind of
-		// defeats the purpose of threading it, but it is needed since bad things
-		// likely happen when OpenALStreamPlayer source is released asynchronously.
-		if (isTrackLoading()){
-			trackLoader.interrupt();
-			try {
-				trackLoader.join();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
+		// cancel pending loads, and wait for any running load to finish, since
+		// bad things likely happen when OpenALStreamPlayer source is released asynchronously
+		cancelLoads();
+		try {
+			getExecutor().submit(new Runnable() {
+				@Override
+				public void run() {}
+			}).get();
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
 		}
-		trackLoader = null;
 
 		// reset state
-		lastOsu = null;
-		trackEnded = false;
-		themePlaying = false;
-		pauseTime = 0f;
-		trackDimmed = false;
+		resetState();
+		PreviewCache.clear();
 
 		// releases all sources from previous tracks
 		destroyOpenAL();
@@ -354,7 +500,10 @@ public class MusicController {
 	private static void destroyOpenAL() {
 		if (!trackExists())
 			return;
-		stop();
+
+		// stop even if paused, which closes the stream (and ends its thread)
+		player.stop();
+		pauseTime = 0f;
 
 		try {
 			// get Music object's (private) Audio object reference
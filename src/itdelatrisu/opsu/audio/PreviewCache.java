@@ -0,0 +1,144 @@
+/*
+ * opsu! - an open-source osu! client
+ * Copyright (C) 2014, 2015 Jeffrey Han
+ *
+ * opsu! is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * opsu! is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with opsu!.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package itdelatrisu.opsu.audio;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.newdawn.slick.openal.Mp3InputStream;
+import org.newdawn.slick.openal.OggInputStream;
+import org.newdawn.slick.util.Log;
+
+/**
+ * Cache of decoded track previews.
+ * <p>
+ * The first few seconds of audio at a track's preview position are decoded
+ * ahead of time, so that the track can start playing from memory while the
+ * stream is positioned after them in the background.  The data is in the
+ * same format as the streaming decoders produce (16-bit little-endian PCM).
+ */
+public class PreviewCache {
+	/** Length of each decoded preview, in milliseconds. */
+	private static final int PREVIEW_LENGTH = 2000;
+
+	/** Maximum number of cached previews. */
+	private static final int MAX_ENTRIES = 12;
+
+	/** Decoded previews, by file path and position, in least-recently used order. */
+	private static final Map<String, byte[]> cache = new LinkedHashMap<String, byte[]>(MAX_ENTRIES * 2, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) { return size() > MAX_ENTRIES; }
+	};
+
+	// This class should not be instantiated.
+	private PreviewCache() {}
+
+	/**
+	 * Returns a cached preview.
+	 * @param file the audio file
+	 * @param position the preview position (in ms)
+	 * @return the decoded data, or null if not cached
+	 */
+	public static synchronized byte[] get(File file, int position) { return cache.get(getKey(file, position)); }
+
+	/**
+	 * Returns whether or not a preview is cached.
+	 * @param file the audio file
+	 * @param position the preview position (in ms)
+	 */
+	public static synchronized boolean contains(File file, int position) { return cache.containsKey(getKey(file, position)); }
+
+	/**
+	 * Decodes and caches a preview, if not already cached.
+	 * @param file the audio file
+	 * @param position the preview position (in ms)
+	 */
+	public static void load(File file, int position) {
+		if (contains(file, position))
+			return;
+
+		try {
+			byte[] data = decode(file, position);
+			if (data != null) {
+				synchronized (PreviewCache.class) {
+					cache.put(getKey(file, position), data);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			Log.warn(String.format("Failed to decode preview of '%s'.", file.getAbsolutePath()), e);
+		}
+	}
+
+	/**
+	 * Clears the cache.
+	 */
+	public static synchronized void clear() { cache.clear(); }
+
+	/**
+	 * Decodes a preview.
+	 * @param file the audio file (MP3 or OGG)
+	 * @param position the preview position (in ms)
+	 * @return the decoded data, or null if the position is at the end of the track
+	 * @throws IOException if the file could not be decoded
+	 */
+	private static byte[] decode(File file, int position) throws IOException {
+		boolean isMP3 = file.getName().toLowerCase().endsWith(".mp3");
+
+		// find the byte position in the same way as the streaming player
+		int rate, channels;
+		try (InputStream in = new FileInputStream(file)) {
+			if (isMP3) {
+				Mp3InputStream mp3 = new Mp3InputStream(in);
+				rate = mp3.getRate();
+				channels = mp3.getChannels();
+			} else {
+				OggInputStream ogg = new OggInputStream(in);
+				rate = ogg.getRate();
+				channels = ogg.getChannels();
+			}
+		}
+		int sampleSize = (channels > 1) ? 4 : 2;
+		long samplePos = (long) (position / 1000f * rate) * sampleSize;
+
+		byte[] data = new byte[(int) ((long) rate * PREVIEW_LENGTH / 1000) * sampleSize];
+		int length = 0;
+		try (InputStream in = (isMP3) ? Mp3InputStream.open(file, samplePos) : OggInputStream.open(file, samplePos)) {
+			int read;
+			while (length < data.length && (read = in.read(data, length, data.length - length)) > 0)
+				length += read;
+		}
+		if (length < sampleSize)
+			return null;
+		return (length < data.length) ? Arrays.copyOf(data, length) : data;
+	}
+
+	/**
+	 * Returns the cache key for a preview.
+	 * @param file the audio file
+	 * @param position the preview position (in ms)
+	 */
+	private static String getKey(File file, int position) { return file.getAbsolutePath() + ':' + position; }
+}
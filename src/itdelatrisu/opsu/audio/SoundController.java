@@ -28,28 +28,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.DataLine;
-import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 import org.newdawn.slick.util.ResourceLoader;
 
 /**
  * Controller for all (non-music) sound components.
- * Note: Uses Java Sound because OpenAL lags too much for accurate hit sounds.
+ * Note: Sounds are mixed in software (see {@link SoundMixer}) because OpenAL
+ * lags too much for accurate hit sounds.
  */
 public class SoundController {
 	/** Interface for all (non-music) sound components. */
 	public interface SoundComponent {
 		/**
-		 * Returns the Clip associated with the sound component.
-		 * @return the Clip
+		 * Returns the sample associated with the sound component.
+		 * @return the sample
 		 */
-		public MultiClip getClip();
+		public SoundSample getSample();
 	}
 
 	/** Sample volume multiplier, from timing points [0, 1]. */
@@ -65,12 +61,11 @@ public class SoundController {
 	private SoundController() {}
 
 	/**
-	 * Loads and returns a Clip from a resource.
+	 * Loads and returns a sound sample from a resource.
 	 * @param ref the resource name
-	 * @param isMP3 true if MP3, false if WAV
-	 * @return the loaded and opened clip
+	 * @return the loaded sample
 	 */
-	private static MultiClip loadClip(String ref, boolean isMP3) {
+	private static SoundSample loadSample(String ref) {
 		try {
 			URL url = ResourceLoader.getResource(ref);
 
@@ -78,80 +73,12 @@ public class SoundController {
 			InputStream in = url.openStream();
 			if (in.available() == 0) {
 				in.close();
-				return new MultiClip(ref, null);
+				return new SoundSample(ref, null);
 			}
 			in.close();
 
-			AudioInputStream audioIn = AudioSystem.getAudioInputStream(url);
-
-			// GNU/Linux workaround
-//			Clip clip = AudioSystem.getClip();
-			AudioFormat format = audioIn.getFormat();
-			if (isMP3) {
-				AudioFormat decodedFormat = new AudioFormat(
-						AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
-						format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
-				AudioInputStream decodedAudioIn = AudioSystem.getAudioInputStream(decodedFormat, audioIn);
-				format = decodedFormat;
-				audioIn = decodedAudioIn;
-			}
-			DataLine.Info info = new DataLine.Info(Clip.class, format);
-			if (AudioSystem.isLineSupported(info)) {
-				return new MultiClip(ref, audioIn);
-			} else {
-				// try to find closest matching line
-				Clip clip = AudioSystem.getClip();
-				AudioFormat[] formats = ((DataLine.Info) clip.getLineInfo()).getFormats();
-				int bestIndex = -1;
-				float bestScore = 0;
-				float sampleRate = format.getSampleRate();
-				if (sampleRate < 0)
-					sampleRate = clip.getFormat().getSampleRate();
-				float oldSampleRate = sampleRate;
-				while (true) {
-					for (int i = 0; i < formats.length; i++) {
-						AudioFormat curFormat = formats[i];
-						AudioFormat newFormat = new AudioFormat(
-								sampleRate, curFormat.getSampleSizeInBits(),
-								curFormat.getChannels(), true, curFormat.isBigEndian());
-						formats[i] = newFormat;
-						DataLine.Info newLine = new DataLine.Info(Clip.class, newFormat);
-						if (AudioSystem.isLineSupported(newLine) &&
-						    AudioSystem.isConversionSupported(newFormat, format)) {
-							float score = 1
-									+ (newFormat.getSampleRate() == sampleRate ? 5 : 0)
-									+ (newFormat.getSampleSizeInBits() == format.getSampleSizeInBits() ? 5 : 0)
-									+ (newFormat.getChannels() == format.getChannels() ? 5 : 0)
-									+ (newFormat.isBigEndian() == format.isBigEndian() ? 1 : 0)
-									+ newFormat.getSampleRate() / 11025
-									+ newFormat.getChannels()
-									+ newFormat.getSampleSizeInBits() / 8;
-							if (score > bestScore) {
-								bestIndex = i;
-								bestScore = score;
-							}
-						}
-					}
-					if (bestIndex < 0) {
-						if (oldSampleRate < 44100) {
-							if (sampleRate > 44100)
-								break;
-							sampleRate *= 2;
-						} else {
-							if (sampleRate < 44100)
-								break;
-							sampleRate /= 2;
-						}
-					} else
-						break;
-				}
-				if (bestIndex >= 0) {
-					return new MultiClip(ref, AudioSystem.getAudioInputStream(formats[bestIndex], audioIn));
-				} else
-					// still couldn't find anything, try the default clip format
-					return new MultiClip(ref, AudioSystem.getAudioInputStream(clip.getFormat(), audioIn));
-			}
-		} catch (UnsupportedAudioFileException | IOException | LineUnavailableException | RuntimeException e) {
+			return new SoundSample(ref, AudioSystem.getAudioInputStream(url));
+		} catch (UnsupportedAudioFileException | IOException | RuntimeException e) {
 			ErrorHandler.error(String.format("Failed to load file '%s'.", ref), e, true);
 		}
 		return null;
@@ -181,7 +108,7 @@ public class SoundController {
 	 * Loads all sound files.
 	 */
 	public static void init() {
-		if (Options.isSoundDisabled())
+		if (Options.isSoundDisabled() || !SoundMixer.init())
 			return;
 
 		currentFileIndex = 0;
@@ -192,7 +119,7 @@ public class SoundController {
 				ErrorHandler.error(String.format("Could not find sound file '%s'.", s.getFileName()), null, false);
 				continue;
 			}
-			s.setClip(loadClip(currentFileName, currentFileName.endsWith(".mp3")));
+			s.setSample(loadSample(currentFileName));
 			currentFileIndex++;
 		}
 
@@ -204,7 +131,7 @@ public class SoundController {
 					ErrorHandler.error(String.format("Could not find hit sound file '%s'.", filename), null, false);
 					continue;
 				}
-				s.setClip(ss, loadClip(currentFileName, false));
+				s.setSample(ss, loadSample(currentFileName));
 				currentFileIndex++;
 			}
 		}
@@ -223,21 +150,16 @@ public class SoundController {
 	}
 
 	/**
-	 * Plays a sound clip.
-	 * @param clip the Clip to play
+	 * Plays a sound sample.
+	 * @param sample the sample to play
 	 * @param volume the volume [0, 1]
 	 */
-	private static void playClip(MultiClip clip, float volume) {
-		if (clip == null)  // clip failed to load properly
+	private static void playSample(SoundSample sample, float volume) {
+		if (sample == null)  // sample failed to load properly
 			return;
 
-		if (volume > 0f) {
-			try {
-				clip.start(volume);
-			} catch (LineUnavailableException e) {
-				ErrorHandler.error(String.format("Could not start a clip '%s'.", clip.getName()), e, true);
-			}
-		}
+		if (volume > 0f)
+			sample.start(volume);
 	}
 
 	/**
@@ -245,7 +167,7 @@ public class SoundController {
 	 * @param s the sound effect
 	 */
 	public static void playSound(SoundComponent s) {
-		playClip(s.getClip(), Options.getEffectVolume() * Options.getMasterVolume());
+		playSample(s.getSample(), Options.getEffectVolume() * Options.getMasterVolume());
 	}
 
 	/**
@@ -264,15 +186,15 @@ public class SoundController {
 
 		// play all sounds
 		HitSound.setSampleSet(sampleSet);
-		playClip(HitSound.NORMAL.getClip(), volume);
+		playSample(HitSound.NORMAL.getSample(), volume);
 
 		HitSound.setSampleSet(additionSampleSet);
 		if ((hitSound & OsuHitObject.SOUND_WHISTLE) > 0)
-			playClip(HitSound.WHISTLE.getClip(), volume);
+			playSample(HitSound.WHISTLE.getSample(), volume);
 		if ((hitSound & OsuHitObject.SOUND_FINISH) > 0)
-			playClip(HitSound.FINISH.getClip(), volume);
+			playSample(HitSound.FINISH.getSample(), volume);
 		if ((hitSound & OsuHitObject.SOUND_CLAP) > 0)
-			playClip(HitSound.CLAP.getClip(), volume);
+			playSample(HitSound.CLAP.getSample(), volume);
 	}
 
 	/**
@@ -280,7 +202,7 @@ public class SoundController {
 	 * @param s the hit sound
 	 */
 	public static void playHitSound(SoundComponent s) {
-		playClip(s.getClip(), Options.getHitSoundVolume() * sampleVolumeMultiplier * Options.getMasterVolume());
+		playSample(s.getSample(), Options.getHitSoundVolume() * sampleVolumeMultiplier * Options.getMasterVolume());
 	}
 
 	/**
@@ -0,0 +1,269 @@
+/*
+ * opsu! - an open-source osu! client
+ * Copyright (C) 2014, 2015 Jeffrey Han
+ *
+ * opsu! is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * opsu! is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with opsu!.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package itdelatrisu.opsu.audio;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import org.newdawn.slick.util.Log;
+
+/**
+ * Software mixer for (non-music) sounds.
+ * <p>
+ * All sound samples are decoded up front into the mixer format, and mixed
+ * on a dedicated thread into a single, always-open output line.  Only as
+ * much audio is kept queued in the line as the thread needs to survive one
+ * oversleep (measured at startup, and grown on underruns), so a triggered
+ * sound is heard quickly.  While no sounds are playing, the thread sleeps
+ * until one is triggered.  Triggering a sound only claims one of a fixed
+ * number of pre-allocated voices; when all voices are in use, the voice
+ * that has been playing the longest is stolen.
+ */
+public class SoundMixer {
+	/** The output sample rate. */
+	public static final int SAMPLE_RATE = 44100;
+
+	/** The number of output channels. */
+	public static final int CHANNELS = 2;
+
+	/** The output format (16-bit signed, little-endian). */
+	public static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+
+	/** Maximum number of sounds that can play at one time. */
+	private static final int MAX_VOICES = 32;
+
+	/** Number of frames mixed at a time (about 2.9ms). */
+	private static final int PERIOD_FRAMES = 128;
+
+	/** Minimum number of periods to keep queued in the output line. */
+	private static final int MIN_QUEUED_PERIODS = 3;
+
+	/** Minimum number of periods to request for the output line buffer. */
+	private static final int MIN_LINE_BUFFER_PERIODS = 16;
+
+	/** Time to wait for the output line to drain, in nanoseconds. */
+	private static final long WAIT_TIME = 500_000L;
+
+	/** Number of waits to time when measuring the timer resolution. */
+	private static final int WAIT_SAMPLES = 10;
+
+	/** A voice, playing one sound sample. */
+	private static class Voice {
+		/** The sample data (interleaved 16-bit frames), or null if not playing. */
+		private short[] data;
+
+		/** The current position in the sample data. */
+		private int position;
+
+		/** The volume [0, 1]. */
+		private float volume;
+
+		/** The order in which the voice was started. */
+		private long sequence;
+	}
+
+	/** The voices. */
+	private static final Voice[] voices = new Voice[MAX_VOICES];
+	static {
+		for (int i = 0; i < MAX_VOICES; i++)
+			voices[i] = new Voice();
+	}
+
+	/** The number of voices started. */
+	private static long voiceCount = 0;
+
+	/** The output line. */
+	private static SourceDataLine line;
+
+	/** The mixing thread. */
+	private static Thread mixerThread;
+
+	/** Whether or not the output line could not be opened. */
+	private static boolean failed = false;
+
+	/** Number of periods to keep queued in the output line. */
+	private static int queuedPeriods;
+
+	// This class should not be instantiated.
+	private SoundMixer() {}
+
+	/**
+	 * Opens the output line and starts the mixing thread, if not already started.
+	 * @return true if the mixer is running
+	 */
+	public static synchronized boolean init() {
+		if (mixerThread != null)
+			return true;
+		if (failed)
+			return false;
+
+		// queue enough audio to cover a wait that oversleeps, plus the period being mixed
+		long waitTime = measureWaitTime();
+		queuedPeriods = Math.max(MIN_QUEUED_PERIODS,
+				(int) Math.ceil(waitTime * SAMPLE_RATE / 1_000_000_000.0 / PERIOD_FRAMES) + 1);
+		int linePeriods = Math.max(MIN_LINE_BUFFER_PERIODS, queuedPeriods * 4);
+		Log.info(String.format("Sound mixer: waits take up to %.1f ms, queuing %d frames.",
+				waitTime / 1_000_000f, queuedPeriods * PERIOD_FRAMES));
+
+		try {
+			line = AudioSystem.getSourceDataLine(FORMAT);
+			line.open(FORMAT, PERIOD_FRAMES * linePeriods * FORMAT.getFrameSize());
+			line.start();
+		} catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+			Log.error("Could not open the sound output line.", e);
+			failed = true;
+			return false;
+		}
+
+		mixerThread = new Thread("SoundMixer") {
+			@Override
+			public void run() { mix(); }
+		};
+		mixerThread.setDaemon(true);
+		mixerThread.setPriority(Thread.MAX_PRIORITY);
+		mixerThread.start();
+		return true;
+	}
+
+	/**
+	 * Returns the longest time that waiting for {@link #WAIT_TIME} actually
+	 * took, over a few tries (e.g. about 15.6ms with the default Windows timer).
+	 * @return the wait time, in nanoseconds
+	 */
+	private static long measureWaitTime() {
+		long max = WAIT_TIME;
+		for (int i = 0; i < WAIT_SAMPLES; i++) {
+			long start = System.nanoTime();
+			LockSupport.parkNanos(WAIT_TIME);
+			max = Math.max(max, System.nanoTime() - start);
+		}
+		return max;
+	}
+
+	/**
+	 * Starts playing a sound sample.
+	 * If all voices are in use, the oldest one is stopped.
+	 * @param data the sample data, in the mixer format
+	 * @param volume the volume [0, 1]
+	 */
+	public static void play(short[] data, float volume) {
+		if (data == null || data.length == 0 || mixerThread == null)
+			return;
+
+		synchronized (voices) {
+			Voice voice = null;
+			for (Voice v : voices) {
+				if (v.data == null) {
+					voice = v;
+					break;
+				}
+				if (voice == null || v.sequence < voice.sequence)
+					voice = v;
+			}
+			voice.data = data;
+			voice.position = 0;
+			voice.volume = volume;
+			voice.sequence = voiceCount++;
+		}
+		LockSupport.unpark(mixerThread);  // wake up if idle
+	}
+
+	/**
+	 * Stops all sounds.
+	 */
+	public static void stopAll() {
+		synchronized (voices) {
+			for (Voice v : voices)
+				v.data = null;
+		}
+	}
+
+	/**
+	 * Mixes the active voices into the output line, forever.
+	 */
+	private static void mix() {
+		int frameSize = FORMAT.getFrameSize();
+		int periodSamples = PERIOD_FRAMES * CHANNELS;
+		int[] mix = new int[periodSamples];
+		byte[] out = new byte[PERIOD_FRAMES * frameSize];
+		int bufferSize = line.getBufferSize();
+		int maxQueued = Math.min(bufferSize - out.length, PERIOD_FRAMES * queuedPeriods * frameSize);
+		int underruns = 0;
+		boolean idle = true;
+
+		while (true) {
+			// wait until the queued audio drops below the target
+			int queued = bufferSize - line.available();
+			if (queued > maxQueued) {
+				LockSupport.parkNanos(WAIT_TIME);
+				continue;
+			}
+
+			// mix one period
+			boolean playing = false;
+			Arrays.fill(mix, 0);
+			synchronized (voices) {
+				for (Voice v : voices) {
+					short[] data = v.data;
+					if (data == null)
+						continue;
+					playing = true;
+					int n = Math.min(periodSamples, data.length - v.position);
+					int volume = (int) (v.volume * 0x10000);
+					for (int i = 0, j = v.position; i < n; i++, j++)
+						mix[i] += (data[j] * volume) >> 16;
+					v.position += n;
+					if (v.position >= data.length)
+						v.data = null;
+				}
+			}
+
+			// nothing playing: let the line drain, and sleep until a sound is played
+			if (!playing) {
+				idle = true;
+				LockSupport.park();
+				continue;
+			}
+
+			// the line ran dry while playing: queue more from now on
+			if (queued == 0 && !idle) {
+				underruns++;
+				if (maxQueued + out.length <= bufferSize - out.length)
+					maxQueued += out.length;
+				if (Integer.bitCount(underruns) == 1)  // log occasionally
+					Log.warn(String.format("Sound output underrun (%d so far); now queuing %d frames.",
+							underruns, maxQueued / frameSize));
+			}
+			idle = false;
+
+			// clip and convert to 16-bit little-endian
+			for (int i = 0, j = 0; i < periodSamples; i++, j += 2) {
+				int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+				out[j] = (byte) sample;
+				out[j + 1] = (byte) (sample >> 8);
+			}
+			line.write(out, 0, out.length);
+		}
+	}
+}
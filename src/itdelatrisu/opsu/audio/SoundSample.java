@@ -0,0 +1,128 @@
+/*
+ * opsu! - an open-source osu! client
+ * Copyright (C) 2014, 2015 Jeffrey Han
+ *
+ * opsu! is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * opsu! is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with opsu!.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package itdelatrisu.opsu.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * A sound sample, decoded into memory in the {@link SoundMixer} format.
+ */
+public class SoundSample {
+	/** Size of a single read buffer. */
+	private static final int BUFFER_SIZE = 0x1000;
+
+	/** The sample data (interleaved 16-bit frames), or null if empty. */
+	private short[] data;
+
+	/** The name given to this sample. */
+	private String name;
+
+	/**
+	 * Constructor.
+	 * @param name the sample name
+	 * @param audioIn the audio stream (null if empty)
+	 * @throws IOException if the audio stream could not be read or converted
+	 */
+	public SoundSample(String name, AudioInputStream audioIn) throws IOException {
+		this.name = name;
+		if (audioIn == null)
+			return;
+
+		// decode to 16-bit signed little-endian PCM
+		AudioFormat format = audioIn.getFormat();
+		float sampleRate = (format.getSampleRate() > 0) ? format.getSampleRate() : SoundMixer.SAMPLE_RATE;
+		int channels = format.getChannels();
+		AudioFormat pcmFormat = new AudioFormat(
+				AudioFormat.Encoding.PCM_SIGNED, sampleRate, 16,
+				channels, channels * 2, sampleRate, false);
+		if (!format.matches(pcmFormat)) {
+			try {
+				audioIn = AudioSystem.getAudioInputStream(pcmFormat, audioIn);
+			} catch (IllegalArgumentException e) {
+				throw new IOException(String.format("Unsupported audio format: %s", format), e);
+			}
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[BUFFER_SIZE];
+		int read;
+		while ((read = audioIn.read(buf)) >= 0)
+			out.write(buf, 0, read);
+		audioIn.close();
+
+		data = convert(out.toByteArray(), sampleRate, channels);
+	}
+
+	/**
+	 * Converts 16-bit little-endian PCM data to the mixer sample rate and channels.
+	 * Linear interpolation is used for resampling.
+	 * @param pcm the PCM data
+	 * @param sampleRate the sample rate of the PCM data
+	 * @param channels the number of channels in the PCM data
+	 * @return the converted data, or null if empty
+	 */
+	private static short[] convert(byte[] pcm, float sampleRate, int channels) {
+		int srcFrames = pcm.length / (channels * 2);
+		if (srcFrames == 0)
+			return null;
+
+		double step = sampleRate / SoundMixer.SAMPLE_RATE;
+		int dstFrames = Math.max(1, (int) (srcFrames / step));
+		short[] dst = new short[dstFrames * SoundMixer.CHANNELS];
+		for (int i = 0; i < dstFrames; i++) {
+			double pos = i * step;
+			int frame = Math.min((int) pos, srcFrames - 1);
+			int nextFrame = Math.min(frame + 1, srcFrames - 1);
+			double frac = pos - frame;
+			for (int c = 0; c < SoundMixer.CHANNELS; c++) {
+				int srcChannel = Math.min(c, channels - 1);
+				int s0 = getSample(pcm, frame * channels + srcChannel);
+				int s1 = getSample(pcm, nextFrame * channels + srcChannel);
+				dst[i * SoundMixer.CHANNELS + c] = (short) Math.round(s0 + (s1 - s0) * frac);
+			}
+		}
+		return dst;
+	}
+
+	/**
+	 * Returns a 16-bit little-endian sample from PCM data.
+	 * @param pcm the PCM data
+	 * @param index the sample index
+	 */
+	private static int getSample(byte[] pcm, int index) {
+		return (short) ((pcm[index * 2] & 0xff) | (pcm[index * 2 + 1] << 8));
+	}
+
+	/**
+	 * Returns the name of the sample.
+	 * @return the name
+	 */
+	public String getName() { return name; }
+
+	/**
+	 * Plays the sample with the specified volume.
+	 * @param volume the volume to play at [0, 1]
+	 */
+	public void start(float volume) { SoundMixer.play(data, volume); }
+}
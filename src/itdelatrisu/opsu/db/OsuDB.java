@@ -36,13 +36,21 @@ import java.util.Map;
 
 /**
  * Handles connections and queries with the cached beatmap database.
+ * <p>
+ * Queries are synchronized, since beatmaps may be added from a background thread.
  */
 public class OsuDB {
 	/**
 	 * Current database version.
 	 * This value should be changed whenever the database format changes.
 	 */
-	private static final String DATABASE_VERSION = "2014-03-04";
+	private static final String DATABASE_VERSION = "2015-03-30";
+
+	/**
+	 * Minimum batch size to load all beatmaps in a single table scan.
+	 * Smaller batches are loaded using indexed lookups instead.
+	 */
+	private static final int LOAD_BATCH_MIN = 50;
 
 	/** Database connection. */
 	private static Connection connection;
@@ -105,6 +113,7 @@ public class OsuDB {
 					"mode INTEGER, letterboxInBreaks BOOLEAN, widescreenStoryboard BOOLEAN, epilepsyWarning BOOLEAN, " +
 					"bg TEXT, timingPoints TEXT, breaks TEXT, combo TEXT" +
 				"); " +
+				"CREATE INDEX IF NOT EXISTS idx ON beatmaps (dir, file); " +
 				"CREATE TABLE IF NOT EXISTS info (" +
 					"key TEXT NOT NULL UNIQUE, value TEXT" +
 				")";
@@ -143,7 +152,7 @@ public class OsuDB {
 	/**
 	 * Clears the database.
 	 */
-	public static void clearDatabase() {
+	public static synchronized void clearDatabase() {
 		// drop the table, then recreate it
 		try (Statement stmt = connection.createStatement()) {
 			String sql = "DROP TABLE beatmaps";
@@ -158,7 +167,7 @@ public class OsuDB {
 	 * Adds the OsuFile to the database.
 	 * @param osu the OsuFile object
 	 */
-	public static void insert(OsuFile osu) {
+	public static synchronized void insert(OsuFile osu) {
 		try {
 			setStatementFields(insertStmt, osu);
 			insertStmt.executeUpdate();
@@ -171,7 +180,7 @@ public class OsuDB {
 	 * Adds the OsuFiles to the database in a batch.
 	 * @param batch a list of OsuFile objects
 	 */
-	public static void insert(List<OsuFile> batch) {
+	public static synchronized void insert(List<OsuFile> batch) {
 		try {
 			// turn off auto-commit mode
 			boolean autoCommit = connection.getAutoCommit();
@@ -246,50 +255,14 @@ public class OsuDB {
 	 * @param dir the directory
 	 * @param file the file
 	 */
-	public static OsuFile getOsuFile(File dir, File file) {
+	public static synchronized OsuFile getOsuFile(File dir, File file) {
 		try {
 			OsuFile osu = new OsuFile(file);
 			selectStmt.setString(1, dir.getName());
 			selectStmt.setString(2, file.getName());
 			ResultSet rs = selectStmt.executeQuery();
-			while (rs.next()) {
-				osu.beatmapID = rs.getInt(4);
-				osu.beatmapSetID = rs.getInt(5);
-				osu.title = OsuParser.getDBString(rs.getString(6));
-				osu.titleUnicode = OsuParser.getDBString(rs.getString(7));
-				osu.artist = OsuParser.getDBString(rs.getString(8));
-				osu.artistUnicode = OsuParser.getDBString(rs.getString(9));
-				osu.creator = OsuParser.getDBString(rs.getString(10));
-				osu.version = OsuParser.getDBString(rs.getString(11));
-				osu.source = OsuParser.getDBString(rs.getString(12));
-				osu.tags = OsuParser.getDBString(rs.getString(13));
-				osu.hitObjectCircle = rs.getInt(14);
-				osu.hitObjectSlider = rs.getInt(15);
-				osu.hitObjectSpinner = rs.getInt(16);
-				osu.HPDrainRate = rs.getFloat(17);
-				osu.circleSize = rs.getFloat(18);
-				osu.overallDifficulty = rs.getFloat(19);
-				osu.approachRate = rs.getFloat(20);
-				osu.sliderMultiplier = rs.getFloat(21);
-				osu.sliderTickRate = rs.getFloat(22);
-				osu.bpmMin = rs.getInt(23);
-				osu.bpmMax = rs.getInt(24);
-				osu.endTime = rs.getInt(25);
-				osu.audioFilename = new File(dir, OsuParser.getDBString(rs.getString(26)));
-				osu.audioLeadIn = rs.getInt(27);
-				osu.previewTime = rs.getInt(28);
-				osu.countdown = rs.getByte(29);
-				osu.sampleSet = OsuParser.getDBString(rs.getString(30));
-				osu.stackLeniency = rs.getFloat(31);
-				osu.mode = rs.getByte(32);
-				osu.letterboxInBreaks = rs.getBoolean(33);
-				osu.widescreenStoryboard = rs.getBoolean(34);
-				osu.epilepsyWarning = rs.getBoolean(35);
-				osu.bg = OsuParser.getDBString(rs.getString(36));
-				osu.timingPointsFromString(rs.getString(37));
-				osu.breaksFromString(rs.getString(38));
-				osu.comboFromString(rs.getString(39));
-			}
+			while (rs.next())
+				setOsuFileFields(rs, osu);
 			rs.close();
 			return osu;
 		} catch (SQLException e) {
@@ -298,18 +271,113 @@ public class OsuDB {
 		}
 	}
 
+	/**
+	 * Loads the fields of the given OsuFiles from the database.
+	 * <p>
+	 * Large batches are loaded by reading the entire table once; smaller
+	 * batches use indexed lookups for each entry.
+	 * @param map a map of file paths ({dir}/{file}) to OsuFile objects
+	 *            (only the file fields need to be set)
+	 */
+	public static synchronized void load(Map<String, OsuFile> map) {
+		if (map.isEmpty())
+			return;
+
+		try {
+			if (map.size() < LOAD_BATCH_MIN) {
+				for (OsuFile osu : map.values()) {
+					File file = osu.getFile();
+					selectStmt.setString(1, file.getParentFile().getName());
+					selectStmt.setString(2, file.getName());
+					ResultSet rs = selectStmt.executeQuery();
+					while (rs.next())
+						setOsuFileFields(rs, osu);
+					rs.close();
+				}
+			} else {
+				try (Statement stmt = connection.createStatement()) {
+					ResultSet rs = stmt.executeQuery("SELECT * FROM beatmaps");
+					int found = 0, size = map.size();
+					while (found < size && rs.next()) {
+						OsuFile osu = map.get(getPath(rs.getString(1), rs.getString(2)));
+						if (osu != null) {
+							setOsuFileFields(rs, osu);
+							found++;
+						}
+					}
+					rs.close();
+				}
+			}
+		} catch (SQLException e) {
+			ErrorHandler.error("Failed to load OsuFiles from database.", e, true);
+		}
+	}
+
+	/**
+	 * Sets all OsuFile fields using a given result set.
+	 * @param rs the result set containing the fields
+	 * @param osu the OsuFile
+	 * @throws SQLException
+	 */
+	private static void setOsuFileFields(ResultSet rs, OsuFile osu) throws SQLException {
+		osu.beatmapID = rs.getInt(4);
+		osu.beatmapSetID = rs.getInt(5);
+		osu.title = OsuParser.getDBString(rs.getString(6));
+		osu.titleUnicode = OsuParser.getDBString(rs.getString(7));
+		osu.artist = OsuParser.getDBString(rs.getString(8));
+		osu.artistUnicode = OsuParser.getDBString(rs.getString(9));
+		osu.creator = OsuParser.getDBString(rs.getString(10));
+		osu.version = OsuParser.getDBString(rs.getString(11));
+		osu.source = OsuParser.getDBString(rs.getString(12));
+		osu.tags = OsuParser.getDBString(rs.getString(13));
+		osu.hitObjectCircle = rs.getInt(14);
+		osu.hitObjectSlider = rs.getInt(15);
+		osu.hitObjectSpinner = rs.getInt(16);
+		osu.HPDrainRate = rs.getFloat(17);
+		osu.circleSize = rs.getFloat(18);
+		osu.overallDifficulty = rs.getFloat(19);
+		osu.approachRate = rs.getFloat(20);
+		osu.sliderMultiplier = rs.getFloat(21);
+		osu.sliderTickRate = rs.getFloat(22);
+		osu.bpmMin = rs.getInt(23);
+		osu.bpmMax = rs.getInt(24);
+		osu.endTime = rs.getInt(25);
+		osu.audioFilename = new File(osu.getFile().getParentFile(), OsuParser.getDBString(rs.getString(26)));
+		osu.audioLeadIn = rs.getInt(27);
+		osu.previewTime = rs.getInt(28);
+		osu.countdown = rs.getByte(29);
+		osu.sampleSet = OsuParser.getDBString(rs.getString(30));
+		osu.stackLeniency = rs.getFloat(31);
+		osu.mode = rs.getByte(32);
+		osu.letterboxInBreaks = rs.getBoolean(33);
+		osu.widescreenStoryboard = rs.getBoolean(34);
+		osu.epilepsyWarning = rs.getBoolean(35);
+		osu.bg = OsuParser.getDBString(rs.getString(36));
+		osu.timingPointsFromString(rs.getString(37));
+		osu.breaksFromString(rs.getString(38));
+		osu.comboFromString(rs.getString(39));
+	}
+
+	/**
+	 * Returns the key used in path maps for a beatmap file.
+	 * @param dir the directory name
+	 * @param file the file name
+	 * @return the path ({dir}/{file})
+	 */
+	public static String getPath(String dir, String file) {
+		return dir + '/' + file;
+	}
+
 	/**
 	 * Returns a map of file paths ({dir}/{file}) to last modified times, or
 	 * null if any error occurred.
 	 */
-	public static Map<String, Long> getLastModifiedMap() {
+	public static synchronized Map<String, Long> getLastModifiedMap() {
 		try {
 			Map<String, Long> map = new HashMap<String, Long>();
 			ResultSet rs = lastModStmt.executeQuery();
 			while (rs.next()) {
-				String path = String.format("%s/%s", rs.getString(1), rs.getString(2));
-				long lastModified = rs.getLong(3);
-				map.put(path, lastModified);
+				map.put(getPath(rs.getString(1), rs.getString(2)), rs.getLong(3));
 			}
 			rs.close();
 			return map;
@@ -324,7 +392,7 @@ public class OsuDB {
 	 * @param dir the directory
 	 * @param file the file
 	 */
-	public static void delete(String dir, String file) {
+	public static synchronized void delete(String dir, String file) {
 		try {
 			deleteMapStmt.setString(1, dir);
 			deleteMapStmt.setString(2, file);
@@ -338,7 +406,7 @@ public class OsuDB {
 	 * Deletes the beatmap group entry from the database.
 	 * @param dir the directory
 	 */
-	public static void delete(String dir) {
+	public static synchronized void delete(String dir) {
 		try {
 			deleteGroupStmt.setString(1, dir);
 			deleteGroupStmt.executeUpdate();
@@ -350,7 +418,7 @@ public class OsuDB {
 	/**
 	 * Closes the connection to the database.
 	 */
-	public static void closeConnection() {
+	public static synchronized void closeConnection() {
 		if (connection != null) {
 			try {
 				insertStmt.close();
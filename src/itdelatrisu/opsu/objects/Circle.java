@@ -23,7 +23,6 @@ import itdelatrisu.opsu.GameImage;
 import itdelatrisu.opsu.GameMod;
 import itdelatrisu.opsu.OsuHitObject;
 import itdelatrisu.opsu.Utils;
-import itdelatrisu.opsu.audio.MusicController;
 import itdelatrisu.opsu.states.Game;
 
 import org.newdawn.slick.Color;
@@ -89,7 +88,7 @@ public class Circle implements HitObject {
 
 			float approachScale = 1 + scale * 3;
 			color.a = 1 - scale;
-			GameImage.APPROACHCIRCLE.getImage().getScaledCopy(approachScale).drawCentered(x, y, color);
+			Utils.drawCentered(GameImage.APPROACHCIRCLE.getImage(), x, y, approachScale, color);
 
 			float alpha = Utils.clamp((1 - scale) * 2, 0, 1);
 			color.a = alpha;
@@ -128,11 +127,10 @@ public class Circle implements HitObject {
 	}
 
 	@Override
-	public boolean mousePressed(int x, int y) {
+	public boolean mousePressed(int x, int y, int trackPosition) {
 		double distance = Math.hypot(hitObject.getX() - x, hitObject.getY() - y);
 		int circleRadius = GameImage.HITCIRCLE.getImage().getWidth() / 2;
 		if (distance < circleRadius) {
-			int trackPosition = MusicController.getPosition();
 			int timeDiff = trackPosition - hitObject.getTime();
 			int result = hitResult(timeDiff);
 
@@ -150,11 +148,10 @@ public class Circle implements HitObject {
 	}
 
 	@Override
-	public boolean update(boolean overlap, int delta, int mouseX, int mouseY) {
+	public boolean update(boolean overlap, int delta, int trackPosition, int mouseX, int mouseY) {
 		int time = hitObject.getTime();
 		float x = hitObject.getX(), y = hitObject.getY();
 
-		int trackPosition = MusicController.getPosition();
 		int[] hitResultOffset = game.getHitResultOffsets();
 		boolean isAutoMod = GameMod.AUTO.isActive();
 
@@ -177,7 +174,7 @@ public class Circle implements HitObject {
 
 		// "relax" mod: click automatically
 		else if (GameMod.RELAX.isActive() && trackPosition >= time)
-			return mousePressed(mouseX, mouseY);
+			return mousePressed(mouseX, mouseY, trackPosition);
 
 		return false;
 	}
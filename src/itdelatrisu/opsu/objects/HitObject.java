@@ -36,17 +36,19 @@ public interface HitObject {
 	 * Updates the hit object.
 	 * @param overlap true if the next object's start time has already passed
 	 * @param delta the delta interval since the last call
+	 * @param trackPosition the track position being simulated
 	 * @param mouseX the x coordinate of the mouse
 	 * @param mouseY the y coordinate of the mouse
 	 * @return true if object ended
 	 */
-	public boolean update(boolean overlap, int delta, int mouseX, int mouseY);
+	public boolean update(boolean overlap, int delta, int trackPosition, int mouseX, int mouseY);
 
 	/**
 	 * Processes a mouse click.
 	 * @param x the x coordinate of the mouse
 	 * @param y the y coordinate of the mouse
+	 * @param trackPosition the track position at which the click occurred
 	 * @return true if a hit result was processed
 	 */
-	public boolean mousePressed(int x, int y);
+	public boolean mousePressed(int x, int y, int trackPosition);
 }
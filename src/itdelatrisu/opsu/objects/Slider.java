@@ -24,12 +24,13 @@ import itdelatrisu.opsu.GameMod;
 import itdelatrisu.opsu.OsuFile;
 import itdelatrisu.opsu.OsuHitObject;
 import itdelatrisu.opsu.Utils;
-import itdelatrisu.opsu.audio.MusicController;
 import itdelatrisu.opsu.objects.curves.CircumscribedCircle;
 import itdelatrisu.opsu.objects.curves.Curve;
 import itdelatrisu.opsu.objects.curves.LinearBezier;
 import itdelatrisu.opsu.states.Game;
 
+import java.util.IdentityHashMap;
+
 import org.newdawn.slick.Animation;
 import org.newdawn.slick.Color;
 import org.newdawn.slick.GameContainer;
@@ -49,6 +50,9 @@ public class Slider implements HitObject {
 	/** Rate at which slider ticks are placed. */
 	private static float sliderTickRate = 1.0f;
 
+	/** Curves for the current beatmap, by hit object (reused on retries). */
+	private static IdentityHashMap<OsuHitObject, Curve> curveCache = new IdentityHashMap<OsuHitObject, Curve>();
+
 	/** The associated OsuHitObject. */
 	private OsuHitObject hitObject;
 
@@ -64,6 +68,12 @@ public class Slider implements HitObject {
 	/** The underlying Curve. */
 	private Curve curve;
 
+	/** The end position of the curve [x, y]. */
+	private float[] endPos;
+
+	/** Points on the curve, reused to avoid allocations in draw() and update(). */
+	private final float[] curvePos = new float[2], curvePos2 = new float[2];
+
 	/** The time duration of the slider, in milliseconds. */
 	private float sliderTime = 0f;
 
@@ -118,6 +128,9 @@ public class Slider implements HitObject {
 
 		sliderMultiplier = osu.sliderMultiplier;
 		sliderTickRate = osu.sliderTickRate;
+		for (Curve curve : curveCache.values())
+			curve.releaseBodyImage();
+		curveCache.clear();
 	}
 
 	/**
@@ -135,10 +148,16 @@ public class Slider implements HitObject {
 		this.color = color;
 		this.comboEnd = comboEnd;
 
-		if (hitObject.getSliderType() == 'P' && hitObject.getSliderX().length == 2)
-			this.curve = new CircumscribedCircle(hitObject, color);
-		else
-			this.curve = new LinearBezier(hitObject, color);
+		// curve geometry only depends on the hit object, so compute it once per beatmap
+		this.curve = curveCache.get(hitObject);
+		if (curve == null) {
+			if (hitObject.getSliderType() == 'P' && hitObject.getSliderX().length == 2)
+				this.curve = new CircumscribedCircle(hitObject, color);
+			else
+				this.curve = new LinearBezier(hitObject, color);
+			curveCache.put(hitObject, curve);
+		}
+		this.endPos = curve.pointAt(1);
 	}
 
 	@SuppressWarnings("deprecation")
@@ -155,13 +174,13 @@ public class Slider implements HitObject {
 		Utils.COLOR_WHITE_FADE.a = alpha;
 
 		// curve
-		curve.draw();
+		curve.draw(g);
 
 		// ticks
 		if (currentObject && ticksT != null) {
 			Image tick = GameImage.SLIDER_TICK.getImage();
 			for (int i = 0; i < ticksT.length; i++) {
-				float[] c = curve.pointAt(ticksT[i]);
+				float[] c = curve.pointAt(ticksT[i], curvePos);
 				tick.drawCentered(c[0], c[1]);
 			}
 		}
@@ -172,7 +191,6 @@ public class Slider implements HitObject {
 		Utils.COLOR_WHITE_FADE.a = 1f;
 
 		// end circle
-		float[] endPos = curve.pointAt(1);
 		hitCircle.drawCentered(endPos[0], endPos[1], color);
 		hitCircleOverlay.drawCentered(endPos[0], endPos[1], Utils.COLOR_WHITE_FADE);
 
@@ -211,10 +229,10 @@ public class Slider implements HitObject {
 		if (timeDiff >= 0) {
 			// approach circle
 			color.a = 1 - scale;
-			GameImage.APPROACHCIRCLE.getImage().getScaledCopy(approachScale).drawCentered(x, y, color);
+			Utils.drawCentered(GameImage.APPROACHCIRCLE.getImage(), x, y, approachScale, color);
 		} else {
-			float[] c = curve.pointAt(getT(trackPosition, false));
-			float[] c2 = curve.pointAt(getT(trackPosition, false) + 0.01f);
+			float[] c = curve.pointAt(getT(trackPosition, false), curvePos);
+			float[] c2 = curve.pointAt(getT(trackPosition, false) + 0.01f, curvePos2);
 
 			// slider ball
 			// TODO: deprecated method
@@ -251,9 +269,8 @@ public class Slider implements HitObject {
 			result = GameData.HIT_MISS;
 
 		if (currentRepeats % 2 == 0) {  // last circle
-			float[] lastPos = curve.pointAt(1);
 			data.hitResult(hitObject.getTime() + (int) sliderTimeTotal, result,
-					lastPos[0], lastPos[1], color, comboEnd, hitObject, currentRepeats + 1);
+					endPos[0], endPos[1], color, comboEnd, hitObject, currentRepeats + 1);
 		} else {  // first circle
 			data.hitResult(hitObject.getTime() + (int) sliderTimeTotal, result,
 					hitObject.getX(), hitObject.getY(), color, comboEnd, hitObject, currentRepeats + 1);
@@ -263,14 +280,13 @@ public class Slider implements HitObject {
 	}
 
 	@Override
-	public boolean mousePressed(int x, int y) {
+	public boolean mousePressed(int x, int y, int trackPosition) {
 		if (sliderClickedInitial)  // first circle already processed
 			return false;
 
 		double distance = Math.hypot(hitObject.getX() - x, hitObject.getY() - y);
 		int circleRadius = GameImage.HITCIRCLE.getImage().getWidth() / 2;
 		if (distance < circleRadius) {
-			int trackPosition = MusicController.getPosition();
 			int timeDiff = Math.abs(trackPosition - hitObject.getTime());
 			int[] hitResultOffset = game.getHitResultOffsets();
 
@@ -294,7 +310,7 @@ public class Slider implements HitObject {
 	}
 
 	@Override
-	public boolean update(boolean overlap, int delta, int mouseX, int mouseY) {
+	public boolean update(boolean overlap, int delta, int trackPosition, int mouseX, int mouseY) {
 		int repeatCount = hitObject.getRepeatCount();
 
 		// slider time and tick calculations
@@ -315,7 +331,6 @@ public class Slider implements HitObject {
 			}
 		}
 
-		int trackPosition = MusicController.getPosition();
 		int[] hitResultOffset = game.getHitResultOffsets();
 		int lastIndex = hitObject.getSliderX().length - 1;
 		boolean isAutoMod = GameMod.AUTO.isActive();
@@ -347,7 +362,7 @@ public class Slider implements HitObject {
 
 			// "relax" mod: click automatically
 			else if (GameMod.RELAX.isActive() && trackPosition >= time)
-				mousePressed(mouseX, mouseY);
+				mousePressed(mouseX, mouseY, trackPosition);
 		}
 
 		// end of slider
@@ -355,8 +370,8 @@ public class Slider implements HitObject {
 			tickIntervals++;
 
 			// check if cursor pressed and within end circle
-			if (Utils.isGameKeyPressed() || GameMod.RELAX.isActive()) {
-				float[] c = curve.pointAt(getT(trackPosition, false));
+			if (game.isGameKeyPressed() || GameMod.RELAX.isActive()) {
+				float[] c = curve.pointAt(getT(trackPosition, false), curvePos);
 				double distance = Math.hypot(c[0] - mouseX, c[1] - mouseY);
 				int followCircleRadius = GameImage.SLIDER_FOLLOWCIRCLE.getImage().getWidth() / 2;
 				if (distance < followCircleRadius)
@@ -373,6 +388,7 @@ public class Slider implements HitObject {
 
 			// calculate and send slider result
 			hitResult();
+			curve.releaseBodyImage();
 			return true;
 		}
 
@@ -401,10 +417,10 @@ public class Slider implements HitObject {
 		}
 
 		// holding slider...
-		float[] c = curve.pointAt(getT(trackPosition, false));
+		float[] c = curve.pointAt(getT(trackPosition, false), curvePos);
 		double distance = Math.hypot(c[0] - mouseX, c[1] - mouseY);
 		int followCircleRadius = GameImage.SLIDER_FOLLOWCIRCLE.getImage().getWidth() / 2;
-		if (((Utils.isGameKeyPressed() || GameMod.RELAX.isActive()) && distance < followCircleRadius) || isAutoMod) {
+		if (((game.isGameKeyPressed() || GameMod.RELAX.isActive()) && distance < followCircleRadius) || isAutoMod) {
 			// mouse pressed and within follow circle
 			followCircleActive = true;
 			data.changeHealth(delta * GameData.HP_DRAIN_MULTIPLIER);
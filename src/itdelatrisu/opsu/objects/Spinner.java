@@ -22,8 +22,8 @@ import itdelatrisu.opsu.GameData;
 import itdelatrisu.opsu.GameImage;
 import itdelatrisu.opsu.GameMod;
 import itdelatrisu.opsu.OsuHitObject;
+import itdelatrisu.opsu.SpriteBatch;
 import itdelatrisu.opsu.Utils;
-import itdelatrisu.opsu.audio.MusicController;
 import itdelatrisu.opsu.audio.SoundController;
 import itdelatrisu.opsu.audio.SoundEffect;
 import itdelatrisu.opsu.states.Game;
@@ -40,8 +40,8 @@ public class Spinner implements HitObject {
 	/** Container dimensions. */
 	private static int width, height;
 
-	/** The number of rotation velocities to store. */
-	private static final int MAX_ROTATION_VELOCITIES = 50;
+	/** The number of rotation velocities to store (one per simulation step, about 0.8 seconds). */
+	private static final int MAX_ROTATION_VELOCITIES = 800 / Game.SIMULATION_STEP;
 
 	/** PI constants. */
 	private static final float TWO_PI  = (float) (Math.PI * 2);
@@ -49,6 +49,9 @@ public class Spinner implements HitObject {
 	/** The associated OsuHitObject. */
 	private OsuHitObject hitObject;
 
+	/** The associated Game object. */
+	private Game game;
+
 	/** The associated GameData object. */
 	private GameData data;
 
@@ -90,6 +93,7 @@ public class Spinner implements HitObject {
 	 */
 	public Spinner(OsuHitObject hitObject, Game game, GameData data) {
 		this.hitObject = hitObject;
+		this.game = game;
 		this.data = data;
 
 		// calculate rotations needed
@@ -107,6 +111,7 @@ public class Spinner implements HitObject {
 		boolean spinnerComplete = (rotations >= rotationsNeeded);
 
 		// darken screen
+		SpriteBatch.flush();
 		g.setColor(Utils.COLOR_BLACK_ALPHA);
 		g.fillRect(0, 0, width, height);
 
@@ -117,7 +122,7 @@ public class Spinner implements HitObject {
 		int rpm = Math.abs(Math.round(sumVelocity / storedVelocities.length * 60));
 		Image rpmImg = GameImage.SPINNER_RPM.getImage();
 		rpmImg.drawCentered(width / 2f, height - rpmImg.getHeight() / 2f);
-		data.drawSymbolString(Integer.toString(rpm), (int) ((width + rpmImg.getWidth() * 0.95f) / 2f),
+		data.drawScoreSymbolNumber(rpm, (int) ((width + rpmImg.getWidth() * 0.95f) / 2f),
 				(int) (height - data.getScoreSymbolImage('0').getHeight() * 1.025f), 1f, 1f, true);
 
 		// spinner meter (subimage)
@@ -133,7 +138,7 @@ public class Spinner implements HitObject {
 		float approachScale = 1 - ((float) timeDiff / (hitObject.getTime() - hitObject.getEndTime()));
 		GameImage.SPINNER_CIRCLE.getImage().setRotation(rotations * 360f);
 		GameImage.SPINNER_CIRCLE.getImage().drawCentered(width / 2, height / 2);
-		GameImage.SPINNER_APPROACHCIRCLE.getImage().getScaledCopy(approachScale).drawCentered(width / 2, height / 2);
+		Utils.drawCentered(GameImage.SPINNER_APPROACHCIRCLE.getImage(), width / 2, height / 2, approachScale, Color.white);
 		GameImage.SPINNER_SPIN.getImage().drawCentered(width / 2, height * 3 / 4);
 
 		if (spinnerComplete) {
@@ -169,12 +174,10 @@ public class Spinner implements HitObject {
 	}
 
 	@Override
-	public boolean mousePressed(int x, int y) { return false; }  // not used
+	public boolean mousePressed(int x, int y, int trackPosition) { return false; }  // not used
 
 	@Override
-	public boolean update(boolean overlap, int delta, int mouseX, int mouseY) {
-		int trackPosition = MusicController.getPosition();
-
+	public boolean update(boolean overlap, int delta, int trackPosition, int mouseX, int mouseY) {
 		// end of spinner
 		if (overlap || trackPosition > hitObject.getEndTime()) {
 			hitResult();
@@ -195,13 +198,13 @@ public class Spinner implements HitObject {
 		}
 
 		// game button is released
-		if (isSpinning && !(Utils.isGameKeyPressed() || GameMod.RELAX.isActive()))
+		if (isSpinning && !(game.isGameKeyPressed() || GameMod.RELAX.isActive()))
 			isSpinning = false;
 
 		float angle = (float) Math.atan2(mouseY - (height / 2), mouseX - (width / 2));
 
 		// set initial angle to current mouse position to skip first click
-		if (!isSpinning && (Utils.isGameKeyPressed() || GameMod.RELAX.isActive())) {
+		if (!isSpinning && (game.isGameKeyPressed() || GameMod.RELAX.isActive())) {
 			lastAngle = angle;
 			isSpinning = true;
 			return false;
@@ -19,12 +19,9 @@
 package itdelatrisu.opsu.objects.curves;
 
 import itdelatrisu.opsu.ErrorHandler;
-import itdelatrisu.opsu.GameImage;
 import itdelatrisu.opsu.OsuHitObject;
-import itdelatrisu.opsu.Utils;
 
 import org.newdawn.slick.Color;
-import org.newdawn.slick.Image;
 
 /**
  * Representation of a curve along a Circumscribed Circle of three points.
@@ -120,6 +117,17 @@ public class CircumscribedCircle extends Curve {
 		// finds the angles to draw for repeats
 		this.drawEndAngle   = (float) ((endAng   + (startAng > endAng ? HALF_PI : -HALF_PI)) * 180 / Math.PI);
 		this.drawStartAngle = (float) ((startAng + (startAng > endAng ? -HALF_PI : HALF_PI)) * 180 / Math.PI);
+
+		// compute the points to draw
+		int steps = (int) Math.ceil(step);
+		this.drawX = new float[steps];
+		this.drawY = new float[steps];
+		float[] xy = new float[2];
+		for (int i = 0; i < steps; i++) {
+			pointAt(i / step, xy);
+			drawX[i] = xy[0];
+			drawY[i] = xy[1];
+		}
 	}
 
 	/**
@@ -160,25 +168,11 @@ public class CircumscribedCircle extends Curve {
 	}
 
 	@Override
-	public float[] pointAt(float t) {
+	public float[] pointAt(float t, float[] out) {
 		float ang = lerp(startAng, endAng, t);
-		return new float[] {
-			(float) (Math.cos(ang) * radius + circleCenter.x),
-			(float) (Math.sin(ang) * radius + circleCenter.y)
-		};
-	}
-
-	@Override
-	public void draw() {
-		Image hitCircle = GameImage.HITCIRCLE.getImage();
-		Image hitCircleOverlay = GameImage.HITCIRCLE_OVERLAY.getImage();
-		float[][] xy = new float[(int) step + 1][];
-		for (int i = 0; i < step; i++) {
-			xy[i] = pointAt(i / step);
-			hitCircleOverlay.drawCentered(xy[i][0], xy[i][1], Utils.COLOR_WHITE_FADE);
-		}
-		for (int i = 0; i < step; i++)
-			hitCircle.drawCentered(xy[i][0], xy[i][1], color);
+		out[0] = (float) (Math.cos(ang) * radius + circleCenter.x);
+		out[1] = (float) (Math.sin(ang) * radius + circleCenter.y);
+		return out;
 	}
 
 	@Override
@@ -18,22 +18,73 @@
 
 package itdelatrisu.opsu.objects.curves;
 
+import itdelatrisu.opsu.GameImage;
 import itdelatrisu.opsu.OsuHitObject;
+import itdelatrisu.opsu.SpriteBatch;
+import itdelatrisu.opsu.Utils;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL14;
+import org.lwjgl.opengl.GLContext;
 import org.newdawn.slick.Color;
+import org.newdawn.slick.Graphics;
+import org.newdawn.slick.Image;
+import org.newdawn.slick.SlickException;
+import org.newdawn.slick.util.Log;
 
 /**
  * Representation of a curve.
+ * <p>
+ * The curve body is drawn as a hit circle at each point along the curve.
+ * These are rendered once into an offscreen image, which is then drawn in
+ * a single call each frame.  Offscreen images are pooled and reused between
+ * curves, and are destroyed with {@link #destroyBodyImages()}.
  *
  * @author fluddokt (https://github.com/fluddokt)
  */
 public abstract class Curve {
+	/** Whether or not curve bodies can be rendered to offscreen images. */
+	private static boolean bodyImageSupported = true;
+
+	/** Offscreen images are allocated in multiples of this size, for reuse. */
+	private static final int TARGET_SIZE_STEP = 64;
+
+	/** Offscreen images that are not in use. */
+	private static List<Image> freeTargets = new ArrayList<Image>();
+
+	/** All offscreen images. */
+	private static List<Image> allTargets = new ArrayList<Image>();
+
+	/** The number of times the offscreen images were destroyed. */
+	private static int targetGeneration = 0;
+
 	/** The associated OsuHitObject. */
 	protected OsuHitObject hitObject;
 
 	/** The color of this curve. */
 	protected Color color;
 
+	/** Points along the curve at which to draw the body (set by subclasses). */
+	protected float[] drawX, drawY;
+
+	/** The rendered curve body, as a region of a pooled offscreen image (null if not rendered). */
+	private Image bodyImage;
+
+	/** The pooled offscreen image that the body was rendered into. */
+	private Image bodyTarget;
+
+	/** The value of {@link #targetGeneration} when the body was rendered. */
+	private int bodyGeneration;
+
+	/** The coordinates of the top-left corner of the body image. */
+	private float bodyImageX, bodyImageY;
+
+	/** Color filter for drawing the body image (premultiplied alpha). */
+	private Color bodyFilter = new Color(Color.white);
+
 	/**
 	 * Constructor.
 	 * @param hitObject the associated OsuHitObject
@@ -49,12 +100,177 @@ public abstract class Curve {
 	 * @param t the t value [0, 1]
 	 * @return the point [x, y]
 	 */
-	public abstract float[] pointAt(float t);
+	public float[] pointAt(float t) { return pointAt(t, new float[2]); }
+
+	/**
+	 * Stores the point on the curve at a value t in the given array.
+	 * Unlike {@link #pointAt(float)}, this does not allocate any objects.
+	 * @param t the t value [0, 1]
+	 * @param out the array to store the point [x, y] in
+	 * @return the out array
+	 */
+	public abstract float[] pointAt(float t, float[] out);
 
 	/**
 	 * Draws the full curve to the graphics context.
+	 * The body is faded using the current alpha of the curve color.
+	 * @param g the graphics context
+	 */
+	public void draw(Graphics g) {
+		if (drawX == null)
+			return;
+
+		// render the body once, or draw each circle if not supported
+		if (bodyImage != null && bodyGeneration != targetGeneration)
+			bodyImage = bodyTarget = null;  // destroyed
+		if (bodyImage == null && bodyImageSupported)
+			renderBodyImage(g);
+		if (bodyImage == null) {
+			drawBody(0, 0, Utils.COLOR_WHITE_FADE, color);
+			return;
+		}
+
+		// the body image has premultiplied alpha
+		float alpha = color.a;
+		bodyFilter.r = bodyFilter.g = bodyFilter.b = bodyFilter.a = alpha;
+		SpriteBatch.setBlendFunc(GL11.GL_ONE, GL11.GL_ONE_MINUS_SRC_ALPHA);
+		bodyImage.draw(bodyImageX, bodyImageY, bodyFilter);
+		SpriteBatch.resetBlendFunc();
+	}
+
+	/**
+	 * Releases the rendered curve body, if any, back to the pool.
+	 * It will be rendered again the next time the curve is drawn.
+	 */
+	public void releaseBodyImage() {
+		if (bodyImage == null)
+			return;
+
+		if (bodyGeneration == targetGeneration)
+			freeTargets.add(bodyTarget);
+		bodyImage = bodyTarget = null;
+	}
+
+	/**
+	 * Destroys all offscreen images used for curve bodies.
+	 * Curves that were rendered will be rendered again the next time they are drawn.
+	 */
+	public static void destroyBodyImages() {
+		for (Image image : allTargets) {
+			try {
+				image.destroy();
+			} catch (SlickException e) {
+				Log.warn("Failed to destroy curve image.", e);
+			}
+		}
+		allTargets.clear();
+		freeTargets.clear();
+		targetGeneration++;
+	}
+
+	/**
+	 * Returns an offscreen image from the pool of at least the given size,
+	 * or creates a new one if none are free.
+	 * @param width the minimum width
+	 * @param height the minimum height
+	 * @throws SlickException if the image could not be created
 	 */
-	public abstract void draw();
+	private static Image getTarget(int width, int height) throws SlickException {
+		// find the smallest free image that fits
+		Image target = null;
+		for (Image image : freeTargets) {
+			if (image.getWidth() >= width && image.getHeight() >= height &&
+			    (target == null || image.getWidth() * image.getHeight() < target.getWidth() * target.getHeight()))
+				target = image;
+		}
+		if (target != null) {
+			freeTargets.remove(target);
+			return target;
+		}
+
+		target = new Image(
+				(width + TARGET_SIZE_STEP - 1) / TARGET_SIZE_STEP * TARGET_SIZE_STEP,
+				(height + TARGET_SIZE_STEP - 1) / TARGET_SIZE_STEP * TARGET_SIZE_STEP);
+		allTargets.add(target);
+		return target;
+	}
+
+	/**
+	 * Draws a hit circle at each point along the curve.
+	 * @param offsetX the x offset to subtract from each point
+	 * @param offsetY the y offset to subtract from each point
+	 * @param overlayColor the hit circle overlay color filter
+	 * @param circleColor the hit circle color filter
+	 */
+	private void drawBody(float offsetX, float offsetY, Color overlayColor, Color circleColor) {
+		Image hitCircle = GameImage.HITCIRCLE.getImage();
+		Image hitCircleOverlay = GameImage.HITCIRCLE_OVERLAY.getImage();
+		SpriteBatch.begin();
+		for (int i = drawX.length - 1; i >= 0; i--)
+			SpriteBatch.drawCentered(hitCircleOverlay, drawX[i] - offsetX, drawY[i] - offsetY, overlayColor);
+		for (int i = drawX.length - 1; i >= 0; i--)
+			SpriteBatch.drawCentered(hitCircle, drawX[i] - offsetX, drawY[i] - offsetY, circleColor);
+		SpriteBatch.end();
+	}
+
+	/**
+	 * Renders the curve body to an offscreen image.
+	 * If offscreen rendering is not supported, the body image will not be set.
+	 * @param g the current graphics context (restored afterwards)
+	 */
+	private void renderBodyImage(Graphics g) {
+		if (!GLContext.getCapabilities().OpenGL14) {
+			bodyImageSupported = false;
+			return;
+		}
+
+		if (drawX.length == 0)
+			return;
+
+		// find the bounds of the body
+		Image hitCircle = GameImage.HITCIRCLE.getImage();
+		Image hitCircleOverlay = GameImage.HITCIRCLE_OVERLAY.getImage();
+		float circleWidth = Math.max(hitCircle.getWidth(), hitCircleOverlay.getWidth());
+		float circleHeight = Math.max(hitCircle.getHeight(), hitCircleOverlay.getHeight());
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		for (int i = 0; i < drawX.length; i++) {
+			minX = Math.min(minX, drawX[i]);
+			minY = Math.min(minY, drawY[i]);
+			maxX = Math.max(maxX, drawX[i]);
+			maxY = Math.max(maxY, drawY[i]);
+		}
+		float x = (float) Math.floor(minX - circleWidth / 2f);
+		float y = (float) Math.floor(minY - circleHeight / 2f);
+		int width = (int) Math.ceil(maxX + circleWidth / 2f - x) + 1;
+		int height = (int) Math.ceil(maxY + circleHeight / 2f - y) + 1;
+
+		SpriteBatch.flush();  // queued sprites belong to the current target
+		try {
+			Image target = getTarget(width, height);
+			Graphics imageGraphics = target.getGraphics();
+			Graphics.setCurrent(imageGraphics);
+			imageGraphics.setBackground(Color.transparent);
+			imageGraphics.clear();
+
+			// blend into premultiplied alpha
+			GL14.glBlendFuncSeparate(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, GL11.GL_ONE, GL11.GL_ONE_MINUS_SRC_ALPHA);
+			drawBody(x, y, Color.white, new Color(color.r, color.g, color.b, 1f));
+			SpriteBatch.flush();
+			GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+			imageGraphics.flush();
+
+			bodyTarget = target;
+			bodyImage = target.getSubImage(0, 0, width, height);
+			bodyGeneration = targetGeneration;
+			bodyImageX = x;
+			bodyImageY = y;
+		} catch (SlickException e) {
+			Log.warn("Failed to render curve to an offscreen image; drawing each point instead.", e);
+			bodyImageSupported = false;
+		} finally {
+			Graphics.setCurrent(g);
+		}
+	}
 
 	/**
 	 * Returns the angle of the first control point.
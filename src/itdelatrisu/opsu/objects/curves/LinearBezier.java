@@ -18,15 +18,13 @@
 
 package itdelatrisu.opsu.objects.curves;
 
-import itdelatrisu.opsu.GameImage;
 import itdelatrisu.opsu.OsuHitObject;
-import itdelatrisu.opsu.Utils;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 
 import org.newdawn.slick.Color;
-import org.newdawn.slick.Image;
 
 /**
  * Representation of a Bezier curve with equidistant points.
@@ -38,11 +36,8 @@ public class LinearBezier extends Curve {
 	/** The angles of the first and last control points for drawing. */
 	private float startAngle, endAngle;
 
-	/** List of Bezier curves in the set of points. */
-	private LinkedList<Bezier2> beziers = new LinkedList<Bezier2>();
-
 	/** Points along the curve at equal distance. */
-	private Vec2f[] curve;
+	private float[] curveX, curveY;
 
 	/** The number of points along the curve. */
 	private int ncurve;
@@ -56,6 +51,7 @@ public class LinearBezier extends Curve {
 		super(hitObject, color);
 
 		// splits points into different Beziers if has the same points (red points)
+		LinkedList<Bezier2> beziers = new LinkedList<Bezier2>();
 		int controlPoints = hitObject.getSliderX().length + 1;
 		LinkedList<Vec2f> points = new LinkedList<Vec2f>();  // temporary list of points to separate different Bezier curves
 		Vec2f lastPoi = null;
@@ -85,7 +81,8 @@ public class LinearBezier extends Curve {
 
 		// now try to creates points the are equidistant to each other
 		this.ncurve = (int) (hitObject.getPixelLength() / 5f);
-		this.curve = new Vec2f[ncurve + 1];
+		this.curveX = new float[ncurve + 1];
+		this.curveY = new float[ncurve + 1];
 
 		float distanceAt = 0;
 		Iterator<Bezier2> iter = beziers.iterator();
@@ -123,55 +120,56 @@ public class LinearBezier extends Curve {
 			// interpolate the point between the two closest distances
 			if (distanceAt - lastDistanceAt > 1) {
 				float t = (prefDistance - lastDistanceAt) / (distanceAt - lastDistanceAt);
-				curve[i] = new Vec2f(lerp(lastCurve.x, thisCurve.x, t), lerp(lastCurve.y, thisCurve.y, t));
+				curveX[i] = lerp(lastCurve.x, thisCurve.x, t);
+				curveY[i] = lerp(lastCurve.y, thisCurve.y, t);
 //				System.out.println("Dis "+i+" "+prefDistance+" "+lastDistanceAt+" "+distanceAt+" "+curPoint+" "+t);
-			} else
-				curve[i] = thisCurve;
+			} else {
+				curveX[i] = thisCurve.x;
+				curveY[i] = thisCurve.y;
+			}
 		}
 
 //		if (hitObject.getRepeatCount() > 1) {
-			Vec2f c1 = curve[0];
+			int c1 = 0;
 			int cnt = 1;
-			Vec2f c2 = curve[cnt++];
-			while (c2.cpy().sub(c1).len() < 1)
-				c2 = curve[cnt++];
-			this.startAngle = (float) (Math.atan2(c2.y - c1.y, c2.x - c1.x) * 180 / Math.PI);
-			c1 = curve[ncurve - 1];
+			int c2 = cnt++;
+			while (distance(c1, c2) < 1)
+				c2 = cnt++;
+			this.startAngle = (float) (Math.atan2(curveY[c2] - curveY[c1], curveX[c2] - curveX[c1]) * 180 / Math.PI);
+			c1 = ncurve - 1;
 			cnt = ncurve - 2;
-			c2 = curve[cnt];
-			while (c2.cpy().sub(c1).len() < 1)
-				c2 = curve[cnt--];
-			this.endAngle = (float) (Math.atan2(c2.y - c1.y, c2.x - c1.x) * 180 / Math.PI);
+			c2 = cnt;
+			while (distance(c1, c2) < 1)
+				c2 = cnt--;
+			this.endAngle = (float) (Math.atan2(curveY[c2] - curveY[c1], curveX[c2] - curveX[c1]) * 180 / Math.PI);
 //		}
+		// draw the body at every point except the last
+		this.drawX = Arrays.copyOf(curveX, ncurve);
+		this.drawY = Arrays.copyOf(curveY, ncurve);
 //		System.out.println("Total Distance: "+totalDistance+" "+distanceAt+" "+beziers.size()+" "+hitObject.getPixelLength()+" "+OsuHitObject.getXMultiplier());
 	}
 
+	/**
+	 * Returns the distance between the points at indices i and j along the curve.
+	 */
+	private float distance(int i, int j) {
+		float dx = curveX[j] - curveX[i], dy = curveY[j] - curveY[i];
+		return (float) Math.sqrt(dx * dx + dy * dy);
+	}
+
 	@Override
-	public float[] pointAt(float t) {
+	public float[] pointAt(float t, float[] out) {
 		float indexF = t * ncurve;
 		int index = (int) indexF;
 		if (index >= ncurve) {
-			Vec2f poi = curve[ncurve - 1];
-			return new float[] { poi.x, poi.y };
+			out[0] = curveX[ncurve - 1];
+			out[1] = curveY[ncurve - 1];
 		} else {
-			Vec2f poi = curve[index];
-			Vec2f poi2 = curve[index + 1];
 			float t2 = indexF - index;
-			return new float[] {
-				lerp(poi.x, poi2.x, t2),
-				lerp(poi.y, poi2.y, t2)
-			};
+			out[0] = lerp(curveX[index], curveX[index + 1], t2);
+			out[1] = lerp(curveY[index], curveY[index + 1], t2);
 		}
-	}
-
-	@Override
-	public void draw() {
-		Image hitCircle = GameImage.HITCIRCLE.getImage();
-		Image hitCircleOverlay = GameImage.HITCIRCLE_OVERLAY.getImage();
-		for (int i = curve.length - 2; i >= 0; i--)
-			hitCircleOverlay.drawCentered(curve[i].x, curve[i].y, Utils.COLOR_WHITE_FADE);
-		for (int i = curve.length - 2; i >= 0; i--)
-			hitCircle.drawCentered(curve[i].x, curve[i].y, color);
+		return out;
 	}
 
 	@Override
@@ -103,8 +103,8 @@ public class ButtonMenu extends BasicGameState {
 			@Override
 			public String[] getTitle(GameContainer container, StateBasedGame game) {
 				return new String[] {
-						"You have requested a full process of your beatmaps.",
-						"This could take a few minutes.",
+						"You have requested a reload of your beatmaps.",
+						"Only new or modified beatmaps will be processed.",
 						"Are you sure you wish to continue?"
 				};
 			}
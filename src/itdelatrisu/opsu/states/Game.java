@@ -22,6 +22,7 @@ import itdelatrisu.opsu.ErrorHandler;
 import itdelatrisu.opsu.GameData;
 import itdelatrisu.opsu.GameImage;
 import itdelatrisu.opsu.GameMod;
+import itdelatrisu.opsu.InputTimer;
 import itdelatrisu.opsu.MenuButton;
 import itdelatrisu.opsu.Opsu;
 import itdelatrisu.opsu.Options;
@@ -29,6 +30,7 @@ import itdelatrisu.opsu.OsuFile;
 import itdelatrisu.opsu.OsuHitObject;
 import itdelatrisu.opsu.OsuTimingPoint;
 import itdelatrisu.opsu.ScoreData;
+import itdelatrisu.opsu.SpriteBatch;
 import itdelatrisu.opsu.UI;
 import itdelatrisu.opsu.Utils;
 import itdelatrisu.opsu.audio.HitSound;
@@ -40,8 +42,12 @@ import itdelatrisu.opsu.objects.Circle;
 import itdelatrisu.opsu.objects.HitObject;
 import itdelatrisu.opsu.objects.Slider;
 import itdelatrisu.opsu.objects.Spinner;
+import itdelatrisu.opsu.objects.curves.Curve;
 
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 import java.util.concurrent.TimeUnit;
 
@@ -78,6 +84,50 @@ public class Game extends BasicGameState {
 	/** Minimum time before start of song, in milliseconds, to process skip-related actions. */
 	private static final int SKIP_OFFSET = 2000;
 
+	/** Gameplay simulation time step, in milliseconds (i.e. simulated at 1 kHz). */
+	public static final int SIMULATION_STEP = 1;
+
+	/** Maximum time, in milliseconds, the simulation may fall behind before skipping ahead (e.g. after seeking). */
+	private static final int MAX_SIMULATION_LAG = 1000;
+
+	/** Game key sources (bit indices in the game key state). */
+	private static final int
+		GAME_KEY_MOUSE_LEFT  = 0,
+		GAME_KEY_MOUSE_RIGHT = 1,
+		GAME_KEY_LEFT        = 2,
+		GAME_KEY_RIGHT       = 3;
+
+	/** Game key press or release, processed by the simulation at the time it occurred. */
+	private static class GameKeyEvent {
+		/** The track position at which the event occurred. */
+		private final int time;
+
+		/** The game key source (GAME_KEY_* constant). */
+		private final int source;
+
+		/** Whether the key was pressed (true) or released (false). */
+		private final boolean pressed;
+
+		/** The mouse coordinates at the time of the event. */
+		private final int x, y;
+
+		/**
+		 * Constructor.
+		 * @param time the track position at which the event occurred
+		 * @param source the game key source
+		 * @param pressed whether the key was pressed or released
+		 * @param x the mouse x coordinate
+		 * @param y the mouse y coordinate
+		 */
+		public GameKeyEvent(int time, int source, boolean pressed, int x, int y) {
+			this.time = time;
+			this.source = source;
+			this.pressed = pressed;
+			this.x = x;
+			this.y = y;
+		}
+	}
+
 	/** The associated OsuFile object. */
 	private OsuFile osu;
 
@@ -146,6 +196,18 @@ public class Game extends BasicGameState {
 	/** Number of retries. */
 	private int retries = 0;
 
+	/** Track position up to which gameplay has been simulated. */
+	private int simulationTime = Integer.MIN_VALUE;
+
+	/** Mouse coordinates at the end of the last simulated frame (for interpolation). */
+	private int simulationMouseX, simulationMouseY;
+
+	/** Game key events not yet processed by the simulation, in order. */
+	private ArrayDeque<GameKeyEvent> gameKeyEvents = new ArrayDeque<GameKeyEvent>();
+
+	/** Game key sources held down at the current simulation time (bit mask of GAME_KEY_* indices). */
+	private int gameKeysDown = 0;
+
 	// game-related variables
 	private GameContainer container;
 	private StateBasedGame game;
@@ -340,11 +402,13 @@ public class Game extends BasicGameState {
 		for (int i = objectIndex; i < hitObjects.length && osu.objects[i].getTime() < trackPosition + approachTime; i++)
 			stack.add(i);
 
+		SpriteBatch.begin();
 		while (!stack.isEmpty())
 			hitObjects[stack.pop()].draw(trackPosition, stack.isEmpty(), g);
 
 		// draw OsuHitObjectResult objects
 		data.drawHitResults(trackPosition);
+		SpriteBatch.end();
 
 		if (GameMod.AUTO.isActive())
 			GameImage.UNRANKED.getImage().drawCentered(width / 2, height * 0.077f);
@@ -357,12 +421,13 @@ public class Game extends BasicGameState {
 
 			// draw glowing hit select circle and pulse effect
 			int circleRadius = GameImage.HITCIRCLE.getImage().getWidth();
-			Image cursorCircle = GameImage.HITCIRCLE_SELECT.getImage().getScaledCopy(circleRadius, circleRadius);
+			Image cursorCircle = GameImage.HITCIRCLE_SELECT.getImage();
+			float circleScale = (float) circleRadius / cursorCircle.getWidth();
 			cursorCircle.setAlpha(1.0f);
-			cursorCircle.drawCentered(pausedMouseX, pausedMouseY);
-			Image cursorCirclePulse = cursorCircle.getScaledCopy(1f + pausePulse);
-			cursorCirclePulse.setAlpha(1f - pausePulse);
-			cursorCirclePulse.drawCentered(pausedMouseX, pausedMouseY);
+			Utils.drawCentered(cursorCircle, pausedMouseX, pausedMouseY, circleScale, Color.white);
+			cursorCircle.setAlpha(1f - pausePulse);
+			Utils.drawCentered(cursorCircle, pausedMouseX, pausedMouseY, circleScale * (1f + pausePulse), Color.white);
+			cursorCircle.setAlpha(1f);
 		}
 
 		UI.draw(g);
@@ -423,7 +488,7 @@ public class Game extends BasicGameState {
 		if (objectIndex >= hitObjects.length || (MusicController.trackEnded() && objectIndex > 0)) {
 			// track ended before last object was processed: force a hit result
 			if (MusicController.trackEnded() && objectIndex < hitObjects.length)
-				hitObjects[objectIndex].update(true, delta, mouseX, mouseY);
+				hitObjects[objectIndex].update(true, delta, MusicController.getPosition(), mouseX, mouseY);
 
 			if (checkpointLoaded)  // if checkpoint used, skip ranking screen
 				game.closeRequested();
@@ -439,6 +504,60 @@ public class Game extends BasicGameState {
 
 		int trackPosition = MusicController.getPosition();
 
+		// simulate gameplay in fixed steps up to the current track position,
+		// interpolating the mouse position and applying game key events when they occurred
+		if (simulationTime == Integer.MIN_VALUE || trackPosition < simulationTime ||
+		    trackPosition - simulationTime > MAX_SIMULATION_LAG) {
+			// first frame, or track position was changed
+			simulationTime = trackPosition - SIMULATION_STEP;
+			simulationMouseX = mouseX;
+			simulationMouseY = mouseY;
+		}
+		int frameStartTime = simulationTime;
+		float frameLength = trackPosition - frameStartTime;
+		boolean running = true;
+		while (running && simulationTime + SIMULATION_STEP <= trackPosition && objectIndex < hitObjects.length) {
+			simulationTime += SIMULATION_STEP;
+			float t = (simulationTime - frameStartTime) / frameLength;
+			int stepMouseX = simulationMouseX + Math.round((mouseX - simulationMouseX) * t);
+			int stepMouseY = simulationMouseY + Math.round((mouseY - simulationMouseY) * t);
+			processGameKeyEvents(simulationTime);
+			running = updateStep(simulationTime, SIMULATION_STEP, stepMouseX, stepMouseY);
+		}
+		simulationMouseX = mouseX;
+		simulationMouseY = mouseY;
+		if (!running || gameKeyEvents.isEmpty()) {
+			// discard events that can no longer apply, and resynchronize the key state
+			gameKeyEvents.clear();
+			gameKeysDown = getPolledGameKeys();
+		}
+		if (!running)
+			return;
+
+		// pause game if focus lost
+		boolean songStarted = (objectIndex > 0 || trackPosition >= osu.objects[0].getTime());
+		if (songStarted && breakTime <= 0 && !container.hasFocus() && !GameMod.AUTO.isActive()) {
+			if (pauseTime < 0) {
+				pausedMouseX = mouseX;
+				pausedMouseY = mouseY;
+				pausePulse = 0f;
+			}
+			if (MusicController.isPlaying() || isLeadIn())
+				pauseTime = trackPosition;
+			game.enterState(Opsu.STATE_GAMEPAUSEMENU);
+		}
+	}
+
+	/**
+	 * Advances the gameplay simulation by one time step:
+	 * timing points, break periods, health drain, and hit objects.
+	 * @param trackPosition the track position being simulated
+	 * @param delta the time step
+	 * @param mouseX the x coordinate of the mouse at this time
+	 * @param mouseY the y coordinate of the mouse at this time
+	 * @return false if the simulation was interrupted (e.g. by a death), true otherwise
+	 */
+	private boolean updateStep(int trackPosition, int delta, int mouseX, int mouseY) {
 		// timing points
 		if (timingPointIndex < osu.timingPoints.size()) {
 			OsuTimingPoint timingPoint = osu.timingPoints.get(timingPointIndex);
@@ -455,14 +574,14 @@ public class Game extends BasicGameState {
 
 		// song beginning
 		if (objectIndex == 0 && trackPosition < osu.objects[0].getTime())
-			return;  // nothing to do here
+			return true;  // nothing to do here
 
 		// break periods
 		if (osu.breaks != null && breakIndex < osu.breaks.size()) {
 			int breakValue = osu.breaks.get(breakIndex);
 			if (breakTime > 0) {  // in a break period
 				if (trackPosition < breakValue)
-					return;
+					return true;
 				else {
 					// break is over
 					breakTime = 0;
@@ -473,22 +592,10 @@ public class Game extends BasicGameState {
 				breakTime = breakValue;
 				breakSound = false;
 				breakIndex++;
-				return;
+				return true;
 			}
 		}
 
-		// pause game if focus lost
-		if (!container.hasFocus() && !GameMod.AUTO.isActive()) {
-			if (pauseTime < 0) {
-				pausedMouseX = mouseX;
-				pausedMouseY = mouseY;
-				pausePulse = 0f;
-			}
-			if (MusicController.isPlaying() || isLeadIn())
-				pauseTime = trackPosition;
-			game.enterState(Opsu.STATE_GAMEPAUSEMENU);
-		}
-
 		// drain health
 		data.changeHealth(delta * -1 * GameData.HP_DRAIN_MULTIPLIER);
 		if (!data.isAlive()) {
@@ -498,13 +605,14 @@ public class Game extends BasicGameState {
 				if (deaths < 3) {
 					deathTime = trackPosition;
 					MusicController.pause();
-					return;
+					return false;
 				}
 			}
 
 			// game over, force a restart
 			restart = Restart.LOSE;
 			game.enterState(Opsu.STATE_GAMEPAUSEMENU);
+			return false;
 		}
 
 		// update objects (loop in unlikely event of any skipped indexes)
@@ -514,11 +622,46 @@ public class Game extends BasicGameState {
 					trackPosition > osu.objects[objectIndex + 1].getTime() - hitResultOffset[GameData.HIT_300]);
 
 			// update hit object and check completion status
-			if (hitObjects[objectIndex].update(overlap, delta, mouseX, mouseY))
+			if (hitObjects[objectIndex].update(overlap, delta, trackPosition, mouseX, mouseY))
 				objectIndex++;  // done, so increment object index
 			else
 				break;
 		}
+		return true;
+	}
+
+	/**
+	 * Applies all queued game key events that occurred up to a track position.
+	 * @param trackPosition the track position being simulated
+	 */
+	private void processGameKeyEvents(int trackPosition) {
+		while (!gameKeyEvents.isEmpty() && gameKeyEvents.peekFirst().time <= trackPosition) {
+			GameKeyEvent e = gameKeyEvents.pollFirst();
+			if (e.pressed) {
+				gameKeysDown |= (1 << e.source);
+				hitObjectPressed(e.x, e.y, e.time);
+			} else
+				gameKeysDown &= ~(1 << e.source);
+		}
+	}
+
+	/**
+	 * Returns the game keys currently held down, as polled from the input device.
+	 * @return a bit mask of GAME_KEY_* indices
+	 */
+	private int getPolledGameKeys() {
+		int keys = 0;
+		if (!Options.isMouseDisabled()) {
+			if (input.isMouseButtonDown(Input.MOUSE_LEFT_BUTTON))
+				keys |= (1 << GAME_KEY_MOUSE_LEFT);
+			if (input.isMouseButtonDown(Input.MOUSE_RIGHT_BUTTON))
+				keys |= (1 << GAME_KEY_MOUSE_RIGHT);
+		}
+		if (input.isKeyDown(Options.getGameKeyLeft()))
+			keys |= (1 << GAME_KEY_LEFT);
+		if (input.isKeyDown(Options.getGameKeyRight()))
+			keys |= (1 << GAME_KEY_RIGHT);
+		return keys;
 	}
 
 	@Override
@@ -531,9 +674,9 @@ public class Game extends BasicGameState {
 		// game keys
 		if (!Keyboard.isRepeatEvent()) {
 			if (key == Options.getGameKeyLeft())
-				gameKeyPressed(Input.MOUSE_LEFT_BUTTON, input.getMouseX(), input.getMouseY());
+				gameKeyPressed(GAME_KEY_LEFT, input.getMouseX(), input.getMouseY(), InputTimer.getKeyEventTrackPosition());
 			else if (key == Options.getGameKeyRight())
-				gameKeyPressed(Input.MOUSE_RIGHT_BUTTON, input.getMouseX(), input.getMouseY());
+				gameKeyPressed(GAME_KEY_RIGHT, input.getMouseX(), input.getMouseY(), InputTimer.getKeyEventTrackPosition());
 		}
 
 		switch (key) {
@@ -650,16 +793,40 @@ public class Game extends BasicGameState {
 			return;
 		}
 
-		gameKeyPressed(button, x, y);
+		if (button == Input.MOUSE_LEFT_BUTTON)
+			gameKeyPressed(GAME_KEY_MOUSE_LEFT, x, y, InputTimer.getMouseEventTrackPosition());
+		else if (button == Input.MOUSE_RIGHT_BUTTON)
+			gameKeyPressed(GAME_KEY_MOUSE_RIGHT, x, y, InputTimer.getMouseEventTrackPosition());
+	}
+
+	@Override
+	public void mouseReleased(int button, int x, int y) {
+		if (Options.isMouseDisabled())
+			return;
+
+		if (button == Input.MOUSE_LEFT_BUTTON)
+			gameKeyReleased(GAME_KEY_MOUSE_LEFT, x, y, InputTimer.getMouseEventTrackPosition());
+		else if (button == Input.MOUSE_RIGHT_BUTTON)
+			gameKeyReleased(GAME_KEY_MOUSE_RIGHT, x, y, InputTimer.getMouseEventTrackPosition());
+	}
+
+	@Override
+	public void keyReleased(int key, char c) {
+		if (key == Options.getGameKeyLeft())
+			gameKeyReleased(GAME_KEY_LEFT, input.getMouseX(), input.getMouseY(), InputTimer.getKeyEventTrackPosition());
+		else if (key == Options.getGameKeyRight())
+			gameKeyReleased(GAME_KEY_RIGHT, input.getMouseX(), input.getMouseY(), InputTimer.getKeyEventTrackPosition());
 	}
 
 	/**
 	 * Handles a game key pressed event.
-	 * @param button the index of the button pressed
+	 * Hit objects receive the event when the simulation reaches the time it occurred.
+	 * @param source the game key source (GAME_KEY_* constant)
 	 * @param x the mouse x coordinate
 	 * @param y the mouse y coordinate
+	 * @param trackPosition the track position at which the event occurred
 	 */
-	private void gameKeyPressed(int button, int x, int y) {
+	private void gameKeyPressed(int source, int x, int y, int trackPosition) {
 		// returning from pause screen
 		if (pauseTime > -1) {
 			double distance = Math.hypot(pausedMouseX - x, pausedMouseY - y);
@@ -678,25 +845,51 @@ public class Game extends BasicGameState {
 		if (objectIndex >= hitObjects.length)  // nothing left to do here
 			return;
 
-		OsuHitObject hitObject = osu.objects[objectIndex];
-
 		// skip beginning
 		if (skipButton.contains(x, y)) {
 			if (skipIntro())
 				return;  // successfully skipped
 		}
 
+		if (!isLeadIn())
+			gameKeyEvents.add(new GameKeyEvent(trackPosition, source, true, x, y));
+	}
+
+	/**
+	 * Handles a game key released event.
+	 * @param source the game key source (GAME_KEY_* constant)
+	 * @param x the mouse x coordinate
+	 * @param y the mouse y coordinate
+	 * @param trackPosition the track position at which the event occurred
+	 */
+	private void gameKeyReleased(int source, int x, int y, int trackPosition) {
+		if (pauseTime < 0 && !isLeadIn() && objectIndex < hitObjects.length)
+			gameKeyEvents.add(new GameKeyEvent(trackPosition, source, false, x, y));
+	}
+
+	/**
+	 * Sends a game key press to the current hit object.
+	 * @param x the mouse x coordinate
+	 * @param y the mouse y coordinate
+	 * @param trackPosition the track position at which the key was pressed
+	 */
+	private void hitObjectPressed(int x, int y, int trackPosition) {
+		if (objectIndex >= hitObjects.length)  // nothing left to do here
+			return;
+
 		// "auto" and "relax" mods: ignore user actions
 		if (GameMod.AUTO.isActive() || GameMod.RELAX.isActive())
 			return;
 
+		OsuHitObject hitObject = osu.objects[objectIndex];
+
 		// circles
-		if (hitObject.isCircle() && hitObjects[objectIndex].mousePressed(x, y))
+		if (hitObject.isCircle() && hitObjects[objectIndex].mousePressed(x, y, trackPosition))
 			objectIndex++;  // circle hit
 
 		// sliders
 		else if (hitObject.isSlider())
-			hitObjects[objectIndex].mousePressed(x, y);
+			hitObjects[objectIndex].mousePressed(x, y, trackPosition);
 	}
 
 	@Override
@@ -734,6 +927,7 @@ public class Game extends BasicGameState {
 
 			// reset game data
 			resetGameData();
+			Curve.destroyBodyImages();
 
 			// needs to play before setting position to resume without lag later
 			MusicController.play(false);
@@ -776,11 +970,14 @@ public class Game extends BasicGameState {
 		skipButton.resetHover();
 	}
 
-//	@Override
-//	public void leave(GameContainer container, StateBasedGame game)
-//			throws SlickException {
+	@Override
+	public void leave(GameContainer container, StateBasedGame game)
+			throws SlickException {
 //		container.setMouseGrabbed(false);
-//	}
+
+		// release the rendered slider bodies (rendered again if resumed)
+		Curve.destroyBodyImages();
+	}
 
 	/**
 	 * Resets all game data and structures.
@@ -805,6 +1002,9 @@ public class Game extends BasicGameState {
 		checkpointLoaded = false;
 		deaths = 0;
 		deathTime = -1;
+		simulationTime = Integer.MIN_VALUE;
+		gameKeyEvents.clear();
+		gameKeysDown = 0;
 
 		System.gc();
 	}
@@ -838,12 +1038,13 @@ public class Game extends BasicGameState {
 
 		// set images
 		File parent = osu.getFile().getParentFile();
+		List<GameImage> skinnable = new ArrayList<GameImage>();
 		for (GameImage img : GameImage.values()) {
-			if (img.isSkinnable()) {
-				img.setDefaultImage();
-				img.setSkinImage(parent);
-			}
+			if (img.isSkinnable())
+				skinnable.add(img);
 		}
+		GameImage.setDefaultImages(skinnable);
+		GameImage.setSkinImages(parent);
 
 		// skip button
 		if (GameImage.SKIP.getImages() != null) {
@@ -941,6 +1142,11 @@ public class Game extends BasicGameState {
 	 */
 	public int[] getHitResultOffsets() { return hitResultOffset; }
 
+	/**
+	 * Returns whether or not any game key is held down at the current simulation time.
+	 */
+	public boolean isGameKeyPressed() { return (gameKeysDown != 0); }
+
 	/**
 	 * Returns the beat length.
 	 */
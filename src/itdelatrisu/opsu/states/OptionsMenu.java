@@ -88,7 +88,8 @@ public class OptionsMenu extends BasicGameState {
 			GameOption.FIXED_HP,
 			GameOption.FIXED_AR,
 			GameOption.FIXED_OD,
-			GameOption.CHECKPOINT
+			GameOption.CHECKPOINT,
+			GameOption.ENABLE_WATCH_SERVICE
 		});
 
 		/** Total number of tabs. */
@@ -18,6 +18,7 @@
 
 package itdelatrisu.opsu.states;
 
+import itdelatrisu.opsu.BeatmapWatcher;
 import itdelatrisu.opsu.GameData;
 import itdelatrisu.opsu.GameData.Grade;
 import itdelatrisu.opsu.GameImage;
@@ -35,15 +36,15 @@ import itdelatrisu.opsu.SongSort;
 import itdelatrisu.opsu.UI;
 import itdelatrisu.opsu.Utils;
 import itdelatrisu.opsu.audio.HitSound;
-import itdelatrisu.opsu.audio.MultiClip;
 import itdelatrisu.opsu.audio.MusicController;
 import itdelatrisu.opsu.audio.SoundController;
 import itdelatrisu.opsu.audio.SoundEffect;
-import itdelatrisu.opsu.db.OsuDB;
 import itdelatrisu.opsu.db.ScoreDB;
 import itdelatrisu.opsu.states.ButtonMenu.MenuState;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
@@ -80,6 +81,12 @@ public class SongMenu extends BasicGameState {
 	/** Delay time, in milliseconds, between each search. */
 	private static final int SEARCH_DELAY = 500;
 
+	/** Number of song buttons on each side of the focus to prefetch backgrounds for. */
+	private static final int BG_PREFETCH_COUNT = 2;
+
+	/** Number of song buttons on each side of the focus to prefetch track previews for. */
+	private static final int PREVIEW_PREFETCH_COUNT = 2;
+
 	/** Delay time, in milliseconds, before moving to the beatmap menu after a right click. */
 	private static final int BEATMAP_MENU_DELAY = 600;
 
@@ -480,31 +487,37 @@ public class SongMenu extends BasicGameState {
 			}
 		}
 
+		// add beatmaps found by the watcher
+		if (reloadThread == null && BeatmapWatcher.hasParsedSongGroups())
+			addWatchedSongGroups();
+
 		// search
 		search.setFocus(true);
 		searchTimer += delta;
 		if (searchTimer >= SEARCH_DELAY && reloadThread == null && beatmapMenuTimer == -1) {
 			searchTimer = 0;
-
+			if (OsuGroupList.get().search(search.getText()))
+				searchResultString = null;
+		}
+		if (OsuGroupList.get().isSearching() && reloadThread == null && beatmapMenuTimer == -1) {
 			// store the start/focus nodes
-			if (focusNode != null)
-				oldFocusNode = new SongNode(OsuGroupList.get().getBaseNode(focusNode.index), focusNode.osuFileIndex);
+			OsuGroupNode oldFocusBase = (focusNode != null) ? OsuGroupList.get().getBaseNode(focusNode.index) : null;
+
+			if (OsuGroupList.get().applySearchResults()) {
+				if (oldFocusBase != null)
+					oldFocusNode = new SongNode(oldFocusBase, focusNode.osuFileIndex);
 
-			if (OsuGroupList.get().search(search.getText())) {
 				// reset song stack
 				randomStack = new Stack<SongNode>();
 
-				// empty search
-				if (search.getText().isEmpty())
-					searchResultString = null;
-
 				// search produced new list: re-initialize it
+				boolean emptySearch = OsuGroupList.get().getLastQuery().isEmpty();
 				startNode = focusNode = null;
 				scoreMap = null;
 				focusScores = null;
 				if (OsuGroupList.get().size() > 0) {
 					OsuGroupList.get().init();
-					if (search.getText().isEmpty()) {  // cleared search
+					if (emptySearch) {  // cleared search
 						// use previous start/focus if possible
 						if (oldFocusNode != null)
 							setFocus(oldFocusNode.getNode(), oldFocusNode.getIndex(), true, true);
@@ -517,7 +530,7 @@ public class SongMenu extends BasicGameState {
 						setFocus(OsuGroupList.get().getRandomNode(), -1, true, true);
 					}
 					oldFocusNode = null;
-				} else if (!search.getText().isEmpty())
+				} else if (!emptySearch)
 					searchResultString = "No matches found. Hit 'esc' to reset.";
 			}
 		}
@@ -934,9 +947,6 @@ public class SongMenu extends BasicGameState {
 		if (resetGame) {
 			((Game) game.getState(Opsu.STATE_GAME)).resetGameData();
 
-			// destroy extra Clips
-			MultiClip.destroyExtraClips();
-
 			// destroy skin images, if any
 			for (GameImage img : GameImage.values()) {
 				if (img.isSkinnable())
@@ -1050,13 +1060,10 @@ public class SongMenu extends BasicGameState {
 				reloadThread = new Thread() {
 					@Override
 					public void run() {
-						// clear the beatmap cache
-						OsuDB.clearDatabase();
-
-						// invoke unpacker and parser
+						// invoke unpacker, then parse only new or modified beatmaps
 						File beatmapDir = Options.getBeatmapDir();
 						OszUnpacker.unpackAllFiles(Options.getOSZDir(), beatmapDir);
-						OsuParser.parseAllFiles(beatmapDir);
+						OsuParser.syncAllFiles(beatmapDir);
 
 						// initialize song list
 						if (OsuGroupList.get().size() > 0) {
@@ -1165,6 +1172,8 @@ public class SongMenu extends BasicGameState {
 		OsuFile osu = focusNode.osuFiles.get(focusNode.osuFileIndex);
 		MusicController.play(osu, true, preview);
 		Utils.loadGlyphs(osu);
+		prefetchBackgrounds();
+		prefetchPreviews();
 
 		// load scores
 		scoreMap = ScoreDB.getMapSetScores(osu);
@@ -1198,6 +1207,115 @@ public class SongMenu extends BasicGameState {
 		return oldFocus;
 	}
 
+	/**
+	 * Starts loading the backgrounds of the focus node and its neighbors,
+	 * so that they are ready by the time they are focused.
+	 */
+	private void prefetchBackgrounds() {
+		List<OsuFile> osuFiles = new ArrayList<OsuFile>(BG_PREFETCH_COUNT * 2 + 1);
+		osuFiles.add(focusNode.osuFiles.get(focusNode.osuFileIndex));
+		OsuGroupNode prev = focusNode.prev, next = focusNode.next;
+		for (int i = 0; i < BG_PREFETCH_COUNT; i++) {
+			if (next != null) {
+				osuFiles.add(next.osuFiles.get(Math.max(next.osuFileIndex, 0)));
+				next = next.next;
+			}
+			if (prev != null) {
+				osuFiles.add(prev.osuFiles.get(Math.max(prev.osuFileIndex, 0)));
+				prev = prev.prev;
+			}
+		}
+		OsuFile.loadBGs(osuFiles, container.getWidth(), container.getHeight());
+	}
+
+	/**
+	 * Starts decoding the track previews of the focus node and its neighbors,
+	 * so that they start playing immediately when focused.
+	 */
+	private void prefetchPreviews() {
+		List<OsuFile> osuFiles = new ArrayList<OsuFile>(PREVIEW_PREFETCH_COUNT * 2 + 1);
+		osuFiles.add(focusNode.osuFiles.get(focusNode.osuFileIndex));
+		OsuGroupNode prev = focusNode.prev, next = focusNode.next;
+		for (int i = 0; i < PREVIEW_PREFETCH_COUNT; i++) {
+			if (next != null) {
+				osuFiles.add(next.osuFiles.get(Math.max(next.osuFileIndex, 0)));
+				next = next.next;
+			}
+			if (prev != null) {
+				osuFiles.add(prev.osuFiles.get(Math.max(prev.osuFileIndex, 0)));
+				prev = prev.prev;
+			}
+		}
+		MusicController.loadPreviews(osuFiles);
+	}
+
+	/**
+	 * Adds all song groups parsed by the beatmap watcher to the song list,
+	 * replacing any existing groups from the same directories.
+	 */
+	private void addWatchedSongGroups() {
+		List<ArrayList<OsuFile>> groups = BeatmapWatcher.getParsedSongGroups();
+		if (groups.isEmpty())
+			return;
+
+		// store the focus node
+		OsuGroupList list = OsuGroupList.get();
+		OsuGroupNode oldFocusBase = null;
+		int oldFocusFileIndex = -1;
+		if (focusNode != null) {
+			oldFocusBase = list.getBaseNode(focusNode.index);
+			oldFocusFileIndex = focusNode.osuFileIndex;
+		}
+
+		// remove replaced song groups
+		Map<String, OsuGroupNode> dirMap = list.getDirectoryMap();
+		List<OsuGroupNode> replacedNodes = new ArrayList<OsuGroupNode>();
+		for (ArrayList<OsuFile> osuFiles : groups) {
+			OsuGroupNode node = dirMap.get(osuFiles.get(0).getFile().getParentFile().getName());
+			if (node != null)
+				replacedNodes.add(node);
+		}
+		list.removeSongGroups(replacedNodes);
+
+		// add new song groups
+		OsuGroupNode lastNode = null;
+		for (ArrayList<OsuFile> osuFiles : groups) {
+			lastNode = list.addSongGroup(osuFiles);
+			if (oldFocusBase != null && replacedNodes.contains(oldFocusBase) &&
+			    osuFiles.get(0).getFile().getParentFile().equals(
+			    oldFocusBase.osuFiles.get(0).getFile().getParentFile()))
+				oldFocusBase = lastNode;
+		}
+		list.reset();
+
+		// send notification (replaced song groups were updated, not imported)
+		int newCount = groups.size() - replacedNodes.size(), updatedCount = replacedNodes.size();
+		String imported = (newCount == 1) ? "Imported 1 new song" : String.format("Imported %d new songs", newCount);
+		String updated = (updatedCount == 1) ? "1 song" : String.format("%d songs", updatedCount);
+		if (updatedCount == 0)
+			UI.sendBarNotification(imported + ".");
+		else if (newCount == 0)
+			UI.sendBarNotification(String.format("Updated %s.", updated));
+		else
+			UI.sendBarNotification(String.format("%s and updated %s.", imported, updated));
+
+		// redo the current search
+		if (!search.getText().isEmpty()) {
+			focusNode = null;
+			searchTimer = SEARCH_DELAY;
+			return;
+		}
+
+		// re-initialize the list and restore the focus node
+		startNode = focusNode = null;
+		randomStack = new Stack<SongNode>();
+		list.init();
+		if (oldFocusBase != null)
+			setFocus(oldFocusBase, oldFocusFileIndex, true, true);
+		else
+			setFocus(lastNode, -1, true, true);
+	}
+
 	/**
 	 * Triggers a reset of game data upon entering this state.
 	 */
@@ -1285,7 +1403,6 @@ public class SongMenu extends BasicGameState {
 		Display.setTitle(String.format("%s - %s", game.getTitle(), osu.toString()));
 		OsuParser.parseHitObjects(osu);
 		HitSound.setDefaultSampleSet(osu.sampleSet);
-		MultiClip.destroyExtraClips();
 		((Game) game.getState(Opsu.STATE_GAME)).setRestart(Game.Restart.NEW);
 		game.enterState(Opsu.STATE_GAME, new FadeOutTransition(Color.black), new FadeInTransition(Color.black));
 	}
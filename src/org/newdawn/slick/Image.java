@@ -61,6 +61,8 @@ public class Image implements Renderable {
 	
 	/** The sprite sheet currently in use */
 	protected static Image inUse;
+	/** The batch that draws are currently queued to, or null to draw immediately */
+	private static Batch batch;
 	/** Use Linear Filtering */
 	public static final int FILTER_LINEAR = 1;
 	/** Use Nearest Filtering */
@@ -111,6 +113,33 @@ public class Image implements Renderable {
     /** The transparent colour set if any */
     private Color transparent;
     
+	/**
+	 * A destination that image draws can be queued to, instead of being
+	 * drawn immediately
+	 */
+	public interface Batch {
+		/**
+		 * Queue an image to be drawn at a specified location and size
+		 * 
+		 * @param image The image to draw
+		 * @param x The x location to draw the image at
+		 * @param y The y location to draw the image at
+		 * @param width The width to render the image at
+		 * @param height The height to render the image at
+		 * @param filter The color to filter with while drawing (may be null)
+		 */
+		public void draw(Image image, float x, float y, float width, float height, Color filter);
+	}
+	
+	/**
+	 * Set the batch that all image draws should be queued to
+	 * 
+	 * @param b The batch to queue draws to, or null to draw immediately
+	 */
+	public static void setBatch(Batch b) {
+		batch = b;
+	}
+	
 	/**
 	 * Create a texture as a copy of another
 	 * 
@@ -798,6 +827,11 @@ public class Image implements Renderable {
 	 * @param filter The color to filter with while drawing
 	 */
     public void draw(float x,float y,float width,float height,Color filter) { 
+    	if (batch != null) {
+    		init();
+    		batch.draw(this, x, y, width, height, filter);
+    		return;
+    	}
     	if (alpha != 1) {
     		if (filter == null) {
     			filter = Color.white;
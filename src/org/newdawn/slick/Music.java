@@ -34,6 +34,7 @@ import java.util.ArrayList;
 
 import org.newdawn.slick.openal.Audio;
 import org.newdawn.slick.openal.AudioImpl;
+import org.newdawn.slick.openal.OpenALStreamPlayer;
 import org.newdawn.slick.openal.SoundStore;
 import org.newdawn.slick.util.Log;
 
@@ -449,6 +450,33 @@ public class Music {
 		}
 	}
 
+	/**
+	 * Seeks to a position in the streaming music, starting playback immediately
+	 * from data that has already been decoded from the position.
+	 * 
+	 * @param position Position in seconds.
+	 * @param pcm The decoded data, in the stream's format
+	 * @return True if the seek was successful
+	 * @see OpenALStreamPlayer#setPosition(float, byte[])
+	 */
+	public boolean setPosition(float position, byte[] pcm) {
+		synchronized (musicLock) {
+			OpenALStreamPlayer stream = SoundStore.get().getStream();
+			if (!playing || currentMusic != this || stream == null)
+				return setPosition(position);
+
+			requiredPosition = -1;
+
+			positioning = true;
+			playing = false;
+			boolean result = stream.setPosition(position, pcm);
+			playing = true;
+			positioning = false;
+
+			return result;
+		}
+	}
+
 	/**
 	 * The position into the sound thats being played
 	 * 
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2013, Slick2D
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Slick2D nor the names of its contributors may be
+ *   used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.newdawn.slick.openal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Random access reads from a file channel through a buffered window, for
+ * scanning files that are mostly read forwards. Unlike a mapped buffer,
+ * nothing stays attached to the file once the channel is closed.
+ */
+class ChannelReader {
+	/** The size of the window */
+	private static final int WINDOW_SIZE = 65536;
+	/** The number of bytes kept before a position when the window moves, since scans look back a little */
+	private static final int BACKTRACK = 8192;
+
+	/** The channel to read from */
+	private FileChannel channel;
+	/** The size of the file */
+	private long size;
+	/** The buffered window */
+	private ByteBuffer window;
+	/** The file position of the start of the window */
+	private long start;
+
+	/**
+	 * Create a new reader
+	 *
+	 * @param channel The channel to read from (its position is not changed)
+	 * @param order The byte order of multi-byte values
+	 * @throws IOException Indicates a failure to get the size of the file
+	 */
+	public ChannelReader(FileChannel channel, ByteOrder order) throws IOException {
+		this.channel = channel;
+		this.size = channel.size();
+		this.window = ByteBuffer.allocate(WINDOW_SIZE).order(order);
+		window.limit(0);
+	}
+
+	/**
+	 * Get the size of the file
+	 *
+	 * @return The size in bytes
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Get a byte
+	 *
+	 * @param pos The file position
+	 * @return The byte at the position
+	 * @throws IOException Indicates a failure to read the file
+	 */
+	public byte get(long pos) throws IOException {
+		return window.get(index(pos, 1));
+	}
+
+	/**
+	 * Get an int
+	 *
+	 * @param pos The file position
+	 * @return The int at the position
+	 * @throws IOException Indicates a failure to read the file
+	 */
+	public int getInt(long pos) throws IOException {
+		return window.getInt(index(pos, 4));
+	}
+
+	/**
+	 * Get a long
+	 *
+	 * @param pos The file position
+	 * @return The long at the position
+	 * @throws IOException Indicates a failure to read the file
+	 */
+	public long getLong(long pos) throws IOException {
+		return window.getLong(index(pos, 8));
+	}
+
+	/**
+	 * Get the index of a value in the window, moving the window if needed
+	 *
+	 * @param pos The file position of the value
+	 * @param length The length of the value in bytes
+	 * @return The index in the window
+	 * @throws IOException Indicates a failure to read the file, or a position beyond the end
+	 */
+	private int index(long pos, int length) throws IOException {
+		if (pos < start || pos + length > start + window.limit()) {
+			if (pos < 0 || pos + length > size) {
+				throw new EOFException("Read beyond the end of the file at "+pos);
+			}
+			start = Math.max(pos - BACKTRACK, 0);
+			window.clear();
+			while (window.hasRemaining() && channel.read(window, start + window.position()) > 0) {
+				// keep reading
+			}
+			window.flip();
+			if (pos + length > start + window.limit()) {
+				throw new EOFException("Read beyond the end of the file at "+pos);
+			}
+		}
+		return (int) (pos - start);
+	}
+}
@@ -28,8 +28,17 @@
 
 package org.newdawn.slick.openal;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javazoom.jl.decoder.Bitstream;
 import javazoom.jl.decoder.BitstreamException;
@@ -42,10 +51,49 @@ import org.newdawn.slick.util.Log;
 
 /**
  * An input stream that can extract MP3 data.
+ * <p>
+ * MP3 files can be opened at any position with {@link #open(File, long)}, which
+ * uses an index of frame offsets (built on the first seek, and cached per file)
+ * to start decoding just before it.
  *
  * @author fluddokt (https://github.com/fluddokt)
  */
 public class Mp3InputStream extends InputStream implements AudioInputStream {
+	/** The number of frames decoded before a seek position, to fill the bit reservoir and filter bank. */
+	private static final int PRIMING_FRAMES = 8;
+
+	/** The maximum number of cached frame indexes. */
+	private static final int MAX_CACHED_INDEXES = 32;
+
+	/** The header bits that must match between frames (sync word, version, sample rate), as in JLayer. */
+	private static final int HEADER_MASK = 0xFFF80C00;
+
+	/** Offsets of the frames in an MP3 file. */
+	private static class FrameIndex {
+		/** The file modification time and length, when indexed. */
+		private long lastModified, length;
+
+		/** The byte offset of each frame. */
+		private int[] offsets;
+
+		/** The number of frames. */
+		private int frameCount;
+
+		/** The number of samples (per channel) decoded from each frame. */
+		private int samplesPerFrame;
+
+		/** The number of channels. */
+		private int channels;
+	}
+
+	/** Cached frame indexes, in access order. */
+	private static final Map<File, FrameIndex> indexCache = new LinkedHashMap<File, FrameIndex>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<File, FrameIndex> eldest) { return size() > MAX_CACHED_INDEXES; }
+	};
+
 	/** The MPEG audio bitstream. */
 	private Bitstream bitstream;
 
@@ -73,6 +121,183 @@ public class Mp3InputStream extends InputStream implements AudioInputStream {
 	/** The byte position. */
 	private int bpos;
 
+	/**
+	 * Opens an MP3 file at a position.
+	 * @param file the MP3 file
+	 * @param position the position to start reading from, in bytes of decoded data
+	 * @return the stream, positioned at the given position
+	 * @throws IOException if the file could not be read, or the position is beyond the end
+	 */
+	public static Mp3InputStream open(File file, long position) throws IOException {
+		FrameIndex index = getIndex(file);
+		long frameBytes = (long) index.samplesPerFrame * index.channels * 2;
+		int frame = (int) (position / frameBytes);
+		if (frame >= index.frameCount)
+			throw new IOException(String.format("Seek position is beyond the end of '%s'.", file.getAbsolutePath()));
+
+		// start a few frames early, since a frame may depend on data in previous frames
+		int startFrame = Math.max(frame - PRIMING_FRAMES, 0);
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			long offset = index.offsets[startFrame];
+			while (offset > 0) {
+				long skipped = in.skip(offset);
+				if (skipped <= 0)
+					throw new IOException(String.format("Failed to skip to frame %d of '%s'.", startFrame, file.getAbsolutePath()));
+				offset -= skipped;
+			}
+			Mp3InputStream stream = new Mp3InputStream(in);
+			stream.skipFrames(frame - startFrame);
+			long remaining = position - frame * frameBytes;
+			if (remaining > 0 && stream.skip(remaining) != remaining)
+				throw new IOException(String.format("Seek position is beyond the end of '%s'.", file.getAbsolutePath()));
+			return stream;
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		} catch (RuntimeException e) {
+			in.close();
+			throw new IOException(String.format("Failed to seek in '%s'.", file.getAbsolutePath()), e);
+		}
+	}
+
+	/**
+	 * Returns the frame index of an MP3 file, building it if necessary.
+	 * @param file the MP3 file
+	 * @return the frame index
+	 * @throws IOException if the file could not be read, or contains no frames
+	 */
+	private static FrameIndex getIndex(File file) throws IOException {
+		synchronized (indexCache) {
+			FrameIndex index = indexCache.get(file);
+			if (index != null && index.lastModified == file.lastModified() && index.length == file.length())
+				return index;
+		}
+
+		FrameIndex index = buildIndex(file);
+		synchronized (indexCache) {
+			indexCache.put(file, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Builds the frame index of an MP3 file by walking the frame headers (no decoding).
+	 * @param file the MP3 file
+	 * @return the frame index
+	 * @throws IOException if the file could not be read, or contains no frames
+	 */
+	private static FrameIndex buildIndex(File file) throws IOException {
+		FrameIndex index = new FrameIndex();
+		index.lastModified = file.lastModified();
+		index.length = file.length();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ChannelReader buf = new ChannelReader(channel, ByteOrder.BIG_ENDIAN);
+			int limit = (int) Math.min(buf.size(), Integer.MAX_VALUE);
+
+			// skip an ID3v2 tag
+			int pos = 0;
+			if (limit >= 10 && buf.get(0) == 'I' && buf.get(1) == 'D' && buf.get(2) == '3') {
+				pos = 10 + (((buf.get(6) & 0x7f) << 21) | ((buf.get(7) & 0x7f) << 14) |
+				            ((buf.get(8) & 0x7f) << 7) | (buf.get(9) & 0x7f));
+				if ((buf.get(5) & 0x10) != 0)  // footer
+					pos += 10;
+			}
+
+			// like JLayer, only accept frames followed by another frame header (or the end of the file)
+			int[] offsets = new int[1024];
+			int count = 0, firstHeader = 0;
+			while (pos + 4 <= limit) {
+				int header = buf.getInt(pos);
+				int frameSize = getFrameSize(header);
+				int next = pos + frameSize;
+				if (frameSize <= 0 || (count > 0 && !isSameStream(header, firstHeader)) || next > limit ||
+				    (next < limit && (next + 4 > limit || !isSameStream(buf.getInt(next), header)))) {
+					pos++;  // resynchronize
+					continue;
+				}
+				if (count == 0) {
+					firstHeader = header;
+					index.samplesPerFrame = getSamplesPerFrame(header);
+					index.channels = (((header >>> 6) & 3) == Header.SINGLE_CHANNEL) ? 1 : 2;
+				}
+				if (count == offsets.length)
+					offsets = Arrays.copyOf(offsets, count * 2);
+				offsets[count++] = pos;
+				pos += frameSize;
+			}
+			if (count == 0)
+				throw new IOException(String.format("No MPEG audio frames found in '%s'.", file.getAbsolutePath()));
+			index.offsets = offsets;
+			index.frameCount = count;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns whether an MPEG audio frame header belongs to the same stream as another.
+	 * @param header the frame header
+	 * @param streamHeader a frame header of the stream
+	 */
+	private static boolean isSameStream(int header, int streamHeader) {
+		return (header & HEADER_MASK) == (streamHeader & HEADER_MASK) &&
+		       (((header >>> 6) & 3) == Header.SINGLE_CHANNEL) == (((streamHeader >>> 6) & 3) == Header.SINGLE_CHANNEL);
+	}
+
+	/**
+	 * Returns the JLayer version index for an MPEG audio frame header.
+	 * @param header the frame header
+	 * @return the version index, or -1 if invalid
+	 */
+	private static int getVersion(int header) {
+		switch ((header >>> 19) & 3) {
+		case 0: return Header.MPEG25_LSF;
+		case 2: return Header.MPEG2_LSF;
+		case 3: return Header.MPEG1;
+		default: return -1;
+		}
+	}
+
+	/**
+	 * Returns the size of an MPEG audio frame, including its header.
+	 * @param header the frame header
+	 * @return the size in bytes, or -1 if the header is not valid
+	 */
+	private static int getFrameSize(int header) {
+		if ((header & 0xFFE00000) != 0xFFE00000)
+			return -1;
+		int version = getVersion(header);
+		int layer = 4 - ((header >>> 17) & 3);
+		int bitrateIndex = (header >>> 12) & 0xF;
+		int frequencyIndex = (header >>> 10) & 3;
+		if (version < 0 || layer == 4 || bitrateIndex == 0 || bitrateIndex == 15 || frequencyIndex == 3)
+			return -1;
+
+		int bitrate = Header.bitrates[version][layer - 1][bitrateIndex];
+		int frequency = Header.frequencies[version][frequencyIndex];
+		int padding = (header >>> 9) & 1;
+		if (layer == 1)
+			return (12 * bitrate / frequency + padding) * 4;
+		else if (layer == 3 && version != Header.MPEG1)
+			return 72 * bitrate / frequency + padding;
+		else
+			return 144 * bitrate / frequency + padding;
+	}
+
+	/**
+	 * Returns the number of samples (per channel) in an MPEG audio frame.
+	 * @param header a valid frame header
+	 */
+	private static int getSamplesPerFrame(int header) {
+		int layer = 4 - ((header >>> 17) & 3);
+		if (layer == 1)
+			return 384;
+		else if (layer == 3 && getVersion(header) != Header.MPEG1)
+			return 576;
+		else
+			return 1152;
+	}
+
 	/**
 	 * Create a new stream to decode MP3 data.
 	 * @param input the input stream from which to read the MP3 file
@@ -200,6 +425,30 @@ public class Mp3InputStream extends InputStream implements AudioInputStream {
 		return skipped;
 	}
 
+	/**
+	 * Decodes and discards whole frames.
+	 * @param n the number of frames after the current one to skip to
+	 * @throws IOException if there are fewer frames left
+	 */
+	private void skipFrames(int n) throws IOException {
+		for (int i = 0; i < n; i++) {
+			try {
+				header = bitstream.readFrame();
+				if (header == null) {
+					endOfStream = true;
+					throw new IOException("Seek position is beyond the end of the stream.");
+				}
+				buf.clear_buffer();
+				decoder.decodeFrame(header, bitstream);
+				bufLen = buf.getBufferLength();
+				bitstream.closeFrame();
+			} catch (BitstreamException | DecoderException e) {
+				Log.error(e);
+			}
+		}
+		bpos = 0;
+	}
+
 	@Override
 	public void close() throws IOException {
 		try {
@@ -0,0 +1,556 @@
+/*
+ * Copyright (c) 2013, Slick2D
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * - Redistributions of source code must retain the above copyright notice,
+ *   this list of conditions and the following disclaimer.
+ * - Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ * - Neither the name of the Slick2D nor the names of its contributors may be
+ *   used to endorse or promote products derived from this software without
+ *   specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.newdawn.slick.openal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.newdawn.slick.util.Log;
+
+import com.jcraft.jogg.Packet;
+import com.jcraft.jogg.Page;
+import com.jcraft.jogg.StreamState;
+import com.jcraft.jogg.SyncState;
+import com.jcraft.jorbis.Block;
+import com.jcraft.jorbis.Comment;
+import com.jcraft.jorbis.DspState;
+import com.jcraft.jorbis.Info;
+
+/**
+ * An input stream that can extract ogg data.
+ * <p>
+ * Ogg Vorbis files can be opened at any position with {@link #open(File, long)},
+ * which finds the page to start decoding from by bisection over the granule
+ * (sample) positions of the pages, instead of decoding everything before it.
+ *
+ * @author kevin
+ */
+public class OggInputStream extends InputStream implements AudioInputStream {
+	/** The number of bytes read from the input at a time */
+	private static final int CHUNK_SIZE = 4096;
+	/** The number of samples decoded before a seek position, so that the decoder has settled (two of the largest Vorbis blocks) */
+	private static final int SEEK_PREROLL = 16384;
+	/** The size of a byte range, below which pages are scanned linearly instead of bisected */
+	private static final int BISECT_LIMIT = 65536;
+	/** The size of an Ogg page header, without its segment table */
+	private static final int PAGE_HEADER_SIZE = 27;
+	/** The granule offset before it has been determined */
+	private static final long UNKNOWN = Long.MIN_VALUE;
+
+	/** The input stream we're reading the OGG from */
+	private InputStream input;
+	/** The total number of bytes available when the stream was opened */
+	private int total;
+	/** The audio information from the OGG header */
+	private Info oggInfo = new Info();
+	/** True if we're at the end of the available data */
+	private boolean endOfStream;
+	/** True if we've read the last page of the bitstream */
+	private boolean endOfBitStream;
+
+	/** The Vorbis SyncState used to decode the OGG */
+	private SyncState syncState = new SyncState();
+	/** The Vorbis Stream State used to decode the OGG */
+	private StreamState streamState = new StreamState();
+	/** The current OGG page */
+	private Page page = new Page();
+	/** The current packet page */
+	private Packet packet = new Packet();
+	/** The comment read from the OGG file */
+	private Comment comment = new Comment();
+	/** The Vorbis DSP stat eused to decode the OGG */
+	private DspState dspState = new DspState();
+	/** The OGG block we're currently working with to convert PCM */
+	private Block vorbisBlock = new Block(dspState);
+
+	/** True if we should be writing big endian */
+	private boolean bigEndian = ByteOrder.nativeOrder().equals(ByteOrder.BIG_ENDIAN);
+	/** The decoded PCM data */
+	private byte[] pcm = new byte[CHUNK_SIZE * 4];
+	/** The position of the next byte to read from the PCM data */
+	private int pcmPos = 0;
+	/** The number of bytes of PCM data */
+	private int pcmLength = 0;
+	/** The PCM output of the DSP state */
+	private float[][][] pcmInfo = new float[1][][];
+	/** The start of each channel's data in the PCM output */
+	private int[] pcmIndex;
+
+	/** The serial number of the bitstream */
+	private int serialNo;
+	/** The byte offset of the first audio page (-1 if unknown) */
+	private long dataOffset = -1;
+	/** The granule position of the last page read (-1 if no packet ends on it) */
+	private long pageGranule = -1;
+	/** The number of samples decoded since the decoder was started */
+	private long decodedSamples = 0;
+	/** The granule position of the first sample decoded since the decoder was started */
+	private long granuleOffset = UNKNOWN;
+
+	/**
+	 * Open an OGG Vorbis file at a position
+	 *
+	 * @param file The file to open
+	 * @param position The position to start reading from, in bytes of decoded data
+	 * @return The stream, positioned at the given position
+	 * @throws IOException Indicates a failure to read the file, or that the position could not be reached
+	 */
+	public static OggInputStream open(File file, long position) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			OggInputStream stream = new OggInputStream(in);
+			stream.seek(in.getChannel(), position);
+			return stream;
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		} catch (RuntimeException e) {
+			in.close();
+			throw new IOException(String.format("Failed to seek in '%s'.", file.getAbsolutePath()), e);
+		}
+	}
+
+	/**
+	 * Create a new stream to decode OGG data
+	 *
+	 * @param input The input stream from which to read the OGG file
+	 * @throws IOException Indicates a failure to read from the supplied stream
+	 */
+	public OggInputStream(InputStream input) throws IOException {
+		this.input = input;
+		total = input.available();
+
+		init();
+	}
+
+	/**
+	 * Get the number of bytes on the stream
+	 *
+	 * @return The number of the bytes on the stream
+	 */
+	public int getLength() {
+		return total;
+	}
+
+	/**
+	 * @see org.newdawn.slick.openal.AudioInputStream#getChannels()
+	 */
+	public int getChannels() {
+		return oggInfo.channels;
+	}
+
+	/**
+	 * @see org.newdawn.slick.openal.AudioInputStream#getRate()
+	 */
+	public int getRate() {
+		return oggInfo.rate;
+	}
+
+	/**
+	 * Initialise the streams and thread involved in the streaming of OGG data
+	 *
+	 * @throws IOException Indicates a failure to link up the streams
+	 */
+	private void init() throws IOException {
+		syncState.init();
+
+		// read the three header packets
+		long offset = 0;
+		boolean resynced = false;
+		int headers = 0;
+		while (headers < 3) {
+			int result = syncState.pageout(page);
+			if (result == 0) {
+				if (!readChunk()) {
+					Log.error("Input does not appear to be an Ogg bitstream.");
+					endOfStream = true;
+					return;
+				}
+				continue;
+			}
+			if (result < 0) {
+				resynced = true;
+				continue;
+			}
+
+			if (headers == 0) {
+				serialNo = page.serialno();
+				streamState.init(serialNo);
+				oggInfo.init();
+				comment.init();
+			}
+			offset += page.header_len + page.body_len;
+			if (streamState.pagein(page) < 0) {
+				Log.error("Error reading header page of Ogg bitstream data.");
+				endOfStream = true;
+				return;
+			}
+			while (headers < 3 && (result = streamState.packetout(packet)) != 0) {
+				if (result < 0 || oggInfo.synthesis_headerin(comment, packet) < 0) {
+					Log.error("Corrupt header in Ogg bitstream data.");
+					endOfStream = true;
+					return;
+				}
+				headers++;
+			}
+		}
+
+		// audio data always starts on a new page
+		if (!resynced)
+			dataOffset = offset;
+
+		pcmIndex = new int[oggInfo.channels];
+		dspState.synthesis_init(oggInfo);
+		vorbisBlock.init(dspState);
+	}
+
+	/**
+	 * Read the next chunk of the input into the sync state
+	 *
+	 * @return True if any data was read, false at the end of the input
+	 * @throws IOException Indicates a failure to read from the input
+	 */
+	private boolean readChunk() throws IOException {
+		int index = syncState.buffer(CHUNK_SIZE);
+		int bytes = input.read(syncState.data, index, CHUNK_SIZE);
+		if (bytes <= 0)
+			return false;
+		syncState.wrote(bytes);
+		return true;
+	}
+
+	/**
+	 * Decode the next packet, appending its output to the PCM data
+	 *
+	 * @return True if a packet was decoded, false at the end of the stream
+	 * @throws IOException Indicates a failure to read from the input
+	 */
+	private boolean decodePacket() throws IOException {
+		while (true) {
+			int result = streamState.packetout(packet);
+			if (result > 0) {
+				if (vorbisBlock.synthesis(packet) == 0)
+					dspState.synthesis_blockin(vorbisBlock);
+				int samples;
+				while ((samples = dspState.synthesis_pcmout(pcmInfo, pcmIndex)) > 0) {
+					appendPCM(pcmInfo[0], samples);
+					dspState.synthesis_read(samples);
+					decodedSamples += samples;
+				}
+				return true;
+			}
+			if (result < 0)  // missing or corrupt data, continue with the next packet
+				continue;
+
+			// every packet ending on the pages read so far has been decoded
+			if (pageGranule >= 0 && granuleOffset == UNKNOWN)
+				granuleOffset = pageGranule - decodedSamples;
+			if (endOfBitStream)
+				return false;
+
+			// read the next page
+			while ((result = syncState.pageout(page)) <= 0) {
+				if (result == 0 && !readChunk())
+					return false;
+			}
+			if (page.serialno() != serialNo)
+				continue;
+			streamState.pagein(page);
+			pageGranule = page.granulepos();
+			if (page.eos() != 0)
+				endOfBitStream = true;
+		}
+	}
+
+	/**
+	 * Convert decoded samples to 16-bit PCM and append them to the PCM data
+	 *
+	 * @param data The decoded samples of each channel
+	 * @param samples The number of samples
+	 */
+	private void appendPCM(float[][] data, int samples) {
+		int channels = oggInfo.channels;
+		int length = samples * channels * 2;
+		if (pcmLength + length > pcm.length)
+			pcm = Arrays.copyOf(pcm, Math.max(pcmLength + length, pcm.length * 2));
+
+		for (int i = 0; i < channels; i++) {
+			int ptr = pcmLength + i * 2;
+			int mono = pcmIndex[i];
+			for (int j = 0; j < samples; j++) {
+				int val = (int) (data[i][mono + j] * 32767.0);
+				if (val > 32767)
+					val = 32767;
+				if (val < -32768)
+					val = -32768;
+				if (val < 0)
+					val = val | 0x8000;
+
+				if (bigEndian) {
+					pcm[ptr] = (byte) (val >>> 8);
+					pcm[ptr + 1] = (byte) (val);
+				} else {
+					pcm[ptr] = (byte) (val);
+					pcm[ptr + 1] = (byte) (val >>> 8);
+				}
+				ptr += 2 * channels;
+			}
+		}
+		pcmLength += length;
+	}
+
+	/**
+	 * Decode until there is PCM data to read
+	 *
+	 * @return True if there is data to read, false at the end of the stream
+	 * @throws IOException Indicates a failure to read from the input
+	 */
+	private boolean fillPCM() throws IOException {
+		pcmPos = pcmLength = 0;
+		while (pcmLength == 0) {
+			if (endOfStream || !decodePacket()) {
+				endOfStream = true;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Seek to a position by restarting the decoder at a page found by bisection
+	 *
+	 * @param channel The file channel of the input
+	 * @param position The position, in bytes of decoded data
+	 * @throws IOException Indicates a failure to read the file, or that the position could not be reached
+	 */
+	private void seek(FileChannel channel, long position) throws IOException {
+		if (endOfStream || dataOffset < 0)
+			throw new IOException("Ogg bitstream is not seekable.");
+
+		int sampleSize = oggInfo.channels * 2;
+		long target = position / sampleSize;
+		ChannelReader map = new ChannelReader(channel, ByteOrder.LITTLE_ENDIAN);
+
+		// find a page to start decoding from, such that the first decoded sample is before the target
+		long base;
+		for (long preroll = SEEK_PREROLL; ; preroll *= 4) {
+			long offset = findPage(map, Math.max(target - preroll, 0));
+			restart(channel, offset);
+			if (offset == dataOffset) {
+				base = 0;
+				break;
+			}
+			while (granuleOffset == UNKNOWN) {
+				if (!decodePacket())
+					throw new IOException("Seek position is beyond the end of the Ogg bitstream.");
+			}
+			base = granuleOffset;
+			if (base <= target)
+				break;
+		}
+
+		// discard the samples before the target
+		long skip = (target - base) * sampleSize;
+		while (skip > pcmLength - pcmPos) {
+			skip -= pcmLength - pcmPos;
+			pcmPos = pcmLength = 0;
+			if (!decodePacket())
+				throw new IOException("Seek position is beyond the end of the Ogg bitstream.");
+		}
+		pcmPos += skip;
+	}
+
+	/**
+	 * Restart decoding from a page
+	 *
+	 * @param channel The file channel of the input
+	 * @param offset The byte offset of the page
+	 * @throws IOException Indicates a failure to reposition the input
+	 */
+	private void restart(FileChannel channel, long offset) throws IOException {
+		channel.position(offset);
+		syncState.reset();
+		streamState.reset();
+		dspState.synthesis_init(oggInfo);
+		vorbisBlock.init(dspState);
+		pcmPos = pcmLength = 0;
+		pageGranule = -1;
+		decodedSamples = 0;
+		granuleOffset = UNKNOWN;
+		endOfStream = endOfBitStream = false;
+	}
+
+	/**
+	 * Find the page to start decoding from to reach a sample position, i.e. the
+	 * page after the last page ending at or before it
+	 *
+	 * @param map The file contents (little endian)
+	 * @param target The sample position
+	 * @return The byte offset of the page
+	 * @throws IOException Indicates a failure to read the file
+	 */
+	private long findPage(ChannelReader map, long target) throws IOException {
+		// bisect while the range is large
+		long lo = dataOffset, hi = map.size();
+		while (hi - lo > BISECT_LIMIT) {
+			long mid = lo + (hi - lo) / 2;
+			long offset = nextPage(map, mid);
+			while (offset >= 0 && getGranule(map, offset) == -1)
+				offset = nextPage(map, offset + getPageLength(map, offset));
+			if (offset < 0 || getGranule(map, offset) > target)
+				hi = mid;
+			else
+				lo = offset + getPageLength(map, offset);
+		}
+
+		// then scan the remaining pages
+		long start = lo;
+		for (long offset = nextPage(map, lo); offset >= 0; ) {
+			long granule = getGranule(map, offset);
+			if (granule > target)
+				break;
+			long next = offset + getPageLength(map, offset);
+			if (granule != -1)
+				start = next;
+			offset = nextPage(map, next);
+		}
+		return start;
+	}
+
+	/**
+	 * Find the next page of the bitstream
+	 *
+	 * @param map The file contents (little endian)
+	 * @param from The byte offset to search from
+	 * @return The byte offset of the page, or -1 if there are no more pages
+	 * @throws IOException Indicates a failure to read the file
+	 */
+	private long nextPage(ChannelReader map, long from) throws IOException {
+		long limit = map.size() - PAGE_HEADER_SIZE;
+		for (long i = from; i <= limit; i++) {
+			if (map.get(i) == 'O' && map.get(i + 1) == 'g' && map.get(i + 2) == 'g' && map.get(i + 3) == 'S' &&
+			    map.get(i + 4) == 0 && map.getInt(i + 14) == serialNo) {
+				// check that the page fits, and is followed by another page or the end of the file
+				int segments = map.get(i + 26) & 0xff;
+				if (i + PAGE_HEADER_SIZE + segments > map.size())
+					continue;
+				long next = i + getPageLength(map, i);
+				if (next == map.size() || (next + 4 <= map.size() && map.getInt(next) == map.getInt(i)))
+					return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the granule position of a page
+	 *
+	 * @param map The file contents (little endian)
+	 * @param offset The byte offset of the page
+	 * @return The granule position (-1 if no packet ends on the page)
+	 * @throws IOException Indicates a failure to read the file
+	 */
+	private long getGranule(ChannelReader map, long offset) throws IOException {
+		return map.getLong(offset + 6);
+	}
+
+	/**
+	 * Get the length of a page, including its header
+	 *
+	 * @param map The file contents (little endian)
+	 * @param offset The byte offset of the page
+	 * @return The length in bytes
+	 * @throws IOException Indicates a failure to read the file
+	 */
+	private int getPageLength(ChannelReader map, long offset) throws IOException {
+		int segments = map.get(offset + 26) & 0xff;
+		int length = PAGE_HEADER_SIZE + segments;
+		for (int i = 0; i < segments; i++)
+			length += map.get(offset + PAGE_HEADER_SIZE + i) & 0xff;
+		return length;
+	}
+
+	/**
+	 * @see java.io.InputStream#available()
+	 */
+	public int available() {
+		return endOfStream ? 0 : 1;
+	}
+
+	/**
+	 * @see java.io.InputStream#read()
+	 */
+	public int read() throws IOException {
+		if (pcmPos >= pcmLength && !fillPCM())
+			return -1;
+		return pcm[pcmPos++] & 0xff;
+	}
+
+	/**
+	 * @see org.newdawn.slick.openal.AudioInputStream#atEnd()
+	 */
+	public boolean atEnd() {
+		return endOfStream && (pcmPos >= pcmLength);
+	}
+
+	/**
+	 * @see java.io.InputStream#read(byte[], int, int)
+	 */
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = 0;
+		while (read < len) {
+			if (pcmPos >= pcmLength && !fillPCM())
+				break;
+			int n = Math.min(len - read, pcmLength - pcmPos);
+			System.arraycopy(pcm, pcmPos, b, off + read, n);
+			pcmPos += n;
+			read += n;
+		}
+		return (read == 0 && len > 0) ? -1 : read;
+	}
+
+	/**
+	 * @see java.io.InputStream#read(byte[])
+	 */
+	public int read(byte[] b) throws IOException {
+		return read(b, 0, b.length);
+	}
+
+	/**
+	 * @see java.io.InputStream#close()
+	 */
+	public void close() throws IOException {
+		input.close();
+	}
+}
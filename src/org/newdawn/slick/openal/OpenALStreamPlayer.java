@@ -28,14 +28,16 @@
 
 package org.newdawn.slick.openal;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.lwjgl.BufferUtils;
-import org.lwjgl.Sys;
 import org.lwjgl.openal.AL10;
+import org.lwjgl.openal.AL11;
 import org.lwjgl.openal.OpenALException;
 import org.newdawn.slick.util.Log;
 import org.newdawn.slick.util.ResourceLoader;
@@ -43,6 +45,11 @@ import org.newdawn.slick.util.ResourceLoader;
 /**
  * A generic tool to work on a supplied stream, pulling out PCM data and buffered it to OpenAL
  * as required.
+ * <p>
+ * The stream is decoded ahead of playback on a dedicated streaming thread into a
+ * PCM ring buffer, which is also used to refill the OpenAL buffers as they are
+ * played, independently of the frame rate.  {@link #update()} may still be called
+ * from the game loop, but only copies already decoded data.
  * 
  * @author Kevin Glass
  * @author Nathan Sweet <misc@n4te.com>
@@ -53,23 +60,142 @@ public class OpenALStreamPlayer {
 	public static final int BUFFER_COUNT = 20;  // 3
 	/** The size of the sections to stream from the stream */
 	private static final int sectionSize = 4096;  // 4096 * 20
+
+	/** The size of the decoded PCM ring buffer (about 3 seconds of 16-bit stereo audio at 44.1 kHz) */
+	private static final int RING_BUFFER_SIZE = sectionSize * 128;
+	/** The maximum number of sections decoded by the streaming thread between refills */
+	private static final int DECODE_BATCH = 8;
+	/** The minimum number of queued buffers before the calling thread decodes directly */
+	private static final int MIN_QUEUED_BUFFERS = 2;
+	/** The number of sections decoded before playback starts (the streaming thread decodes the rest) */
+	private static final int START_BUFFERS = 4;
+	/** The time the streaming thread sleeps when there is nothing to decode, in milliseconds */
+	private static final int STREAM_INTERVAL = 5;
+	/** The minimum distance of a forward seek that uses the seek index instead of decoding, in seconds */
+	private static final int INDEXED_SEEK_DISTANCE = 1;
+
+	/** The maximum lead of the OpenAL clock over the smoothed clock before the smoothed clock jumps to it, in seconds */
+	private static final double MAX_CLOCK_LEAD = 0.05;
+	/** The maximum lag of the OpenAL clock behind the smoothed clock before the smoothed clock restarts from it, in seconds */
+	private static final double MAX_CLOCK_LAG = 1.0;
+	/** The time over which the smoothed clock corrects its drift from the OpenAL clock, in seconds */
+	private static final double CLOCK_CORRECTION_TIME = 0.5;
+	/** The weight given to each new sample in the clock jitter average */
+	private static final double JITTER_WEIGHT = 0.02;
+
+	/** The number of times a source ran out of queued buffers and stopped */
+	private static final AtomicInteger underruns = new AtomicInteger();
+	/** The number of times the ring buffer was empty when a buffer needed refilling */
+	private static final AtomicInteger decodeUnderruns = new AtomicInteger();
+
+	/**
+	 * A single-producer, single-consumer ring buffer of decoded PCM data.
+	 * The positions are only ever advanced by one side each, so no locking is
+	 * needed between the decoder and the buffer refills.
+	 */
+	private static class RingBuffer {
+		/** The data */
+		private final byte[] data;
+		/** The total number of bytes written (only advanced by the producer) */
+		private volatile long writePos = 0;
+		/** The total number of bytes read (only advanced by the consumer) */
+		private volatile long readPos = 0;
+
+		/**
+		 * Create a new ring buffer
+		 * 
+		 * @param size The capacity in bytes
+		 */
+		public RingBuffer(int size) {
+			data = new byte[size];
+		}
+
+		/**
+		 * Get the number of bytes available to read
+		 * 
+		 * @return The number of bytes written but not yet read
+		 */
+		public int available() {
+			return (int) (writePos - readPos);
+		}
+
+		/**
+		 * Get the number of bytes that can be written
+		 * 
+		 * @return The free space in bytes
+		 */
+		public int free() {
+			return data.length - available();
+		}
+
+		/**
+		 * Write data to the buffer (producer only)
+		 * 
+		 * @param b The data to write
+		 * @param len The number of bytes to write, at most {@link #free()}
+		 */
+		public void write(byte[] b, int len) {
+			int offset = (int) (writePos % data.length);
+			int n = Math.min(len, data.length - offset);
+			System.arraycopy(b, 0, data, offset, n);
+			System.arraycopy(b, n, data, 0, len - n);
+			writePos += len;  // publish only after the data is written
+		}
+
+		/**
+		 * Read data from the buffer (consumer only)
+		 * 
+		 * @param dst The buffer to read into
+		 * @param len The number of bytes to read, at most {@link #available()}
+		 */
+		public void read(ByteBuffer dst, int len) {
+			int offset = (int) (readPos % data.length);
+			int n = Math.min(len, data.length - offset);
+			dst.put(data, offset, n);
+			dst.put(data, 0, len - n);
+			readPos += len;
+		}
+
+		/**
+		 * Discard all data. Neither the producer nor the consumer may be active.
+		 */
+		public void clear() {
+			writePos = readPos = 0;
+		}
+	}
 	
 	/** The buffer read from the data stream */
 	private byte[] buffer = new byte[sectionSize];
-	/** Holds the OpenAL buffer names */
+	/** Holds the OpenAL buffer names (null until played, or once closed) */
 	private IntBuffer bufferNames;
 	/** The byte buffer passed to OpenAL containing the section */
 	private ByteBuffer bufferData = BufferUtils.createByteBuffer(sectionSize);
 	/** The buffer holding the names of the OpenAL buffer thats been fully played back */
 	private IntBuffer unqueued = BufferUtils.createIntBuffer(1);
+	/** The OpenAL buffers not currently queued on the source */
+	private int[] freeBuffers = new int[BUFFER_COUNT];
+	/** The number of OpenAL buffers not currently queued on the source */
+	private int freeBufferCount = 0;
+	/** The decoded data waiting to be queued */
+	private RingBuffer ring = new RingBuffer(RING_BUFFER_SIZE);
+	/** The lock held while reading from the audio stream */
+	private final Object decodeLock = new Object();
+	/** The thread decoding ahead and refilling buffers (null if not started) */
+	private Thread streamThread;
 	/** The source we're playing back on */
     private int source;
-	/** The number of buffers remaining */
-    private int remainingBufferCount;
 	/** True if we should loop the track */
 	private boolean loop;
 	/** True if we've completed streaming to buffer (but may not be done playing) */
-	private boolean done = true;
+	private volatile boolean done = true;
+	/** True if the whole stream has been decoded (and we're not looping) */
+	private volatile boolean eof = false;
+	/** True if playback is paused */
+	private volatile boolean paused = false;
+	/** True if the stream has been closed */
+	private volatile boolean closed = false;
+	/** The position to seek to before decoding the next section, in bytes (negative if none) */
+	private long seekPos = -1;
 	/** The stream we're currently reading from */
 	private AudioInputStream audio;
 	/** The source of the data */
@@ -90,17 +216,42 @@ public class OpenALStreamPlayer {
 	/** The sample size. */
 	int sampleSize;
 
+	/** The OpenAL buffer format. */
+	int format;
+
 	/** The play position. */
 	long playedPos;
 
 	/** The music length. */
-	long musicLength = -1;
+	volatile long musicLength = -1;
+
+	/** The smoothed clock position at the last query, in seconds (negative if not started). */
+	private double clockPos = -1;
 
-	/** The time of the last update, in ms. */
-	long lastUpdateTime = getTime();
+	/** The high-resolution time of the last clock query, in nanoseconds. */
+	private long clockTime;
+
+	/** The average absolute difference between the OpenAL and smoothed clocks, in seconds. */
+	private double clockJitter = 0;
+
+	/**
+	 * Get the number of times a stream ran out of queued buffers, causing an audible dropout
+	 * 
+	 * @return The total number of source underruns
+	 */
+	public static int getUnderrunCount() {
+		return underruns.get();
+	}
 
-	/** The offset time. */
-	long offsetTime = 0;
+	/**
+	 * Get the number of times decoding fell behind, so that buffers could not be refilled
+	 * from the ring buffer as soon as they were played
+	 * 
+	 * @return The total number of ring buffer underruns
+	 */
+	public static int getDecodeUnderrunCount() {
+		return decodeUnderruns.get();
+	}
 
 	/**
 	 * Create a new player to work on an audio stream
@@ -111,9 +262,6 @@ public class OpenALStreamPlayer {
 	public OpenALStreamPlayer(int source, String ref) {
 		this.source = source;
 		this.ref = ref;
-		
-		bufferNames = BufferUtils.createIntBuffer(BUFFER_COUNT);
-		AL10.alGenBuffers(bufferNames);
 	}
 
 	/**
@@ -125,9 +273,6 @@ public class OpenALStreamPlayer {
 	public OpenALStreamPlayer(int source, URL url) {
 		this.source = source;
 		this.url = url;
-
-		bufferNames = BufferUtils.createIntBuffer(BUFFER_COUNT);
-		AL10.alGenBuffers(bufferNames);
 	}
 	
 	/**
@@ -153,13 +298,15 @@ public class OpenALStreamPlayer {
 		
 		this.audio = audio;
 		sampleRate = audio.getRate();
-		if (audio.getChannels() > 1)
-			sampleSize = 4; // AL10.AL_FORMAT_STEREO16
-		else
-			sampleSize = 2; // AL10.AL_FORMAT_MONO16
+		if (audio.getChannels() > 1) {
+			sampleSize = 4;
+			format = AL10.AL_FORMAT_STEREO16;
+		} else {
+			sampleSize = 2;
+			format = AL10.AL_FORMAT_MONO16;
+		}
 //		positionOffset = 0;
 		streamPos = 0;
-		playedPos = 0;
 		
 	}
 	
@@ -192,14 +339,25 @@ public class OpenALStreamPlayer {
 	 * @throws IOException Indicates a failure to read from the stream
 	 */
 	public synchronized void play(boolean loop) throws IOException {
-		this.loop = loop;
-		initStreams();
-		
-		done = false;
+		if (bufferNames == null) {
+			bufferNames = BufferUtils.createIntBuffer(BUFFER_COUNT);
+			AL10.alGenBuffers(bufferNames);
+		}
+		synchronized (decodeLock) {
+			this.loop = loop;
+			initStreams();
+			ring.clear();
+			eof = false;
+			seekPos = -1;
+			musicLength = -1;
+		}
+		playedPos = 0;
+		paused = false;
 
 		AL10.alSourceStop(source);
 		
 		startPlayback();
+		startStreamThread();
 	}
 	
 	/**
@@ -220,12 +378,93 @@ public class OpenALStreamPlayer {
 	public boolean done() {
 		return done;
 	}
+
+	/**
+	 * Start the thread that decodes ahead and refills the buffers, if not already running
+	 */
+	private void startStreamThread() {
+		if (streamThread != null)
+			return;
+
+		closed = false;
+		streamThread = new Thread("AudioStream") {
+			@Override
+			public void run() {
+				while (!closed) {
+					// decode ahead, then refill any played buffers
+					int decoded = 0;
+					while (decoded < DECODE_BATCH && !closed && decodeSection())
+						decoded++;
+					try {
+						if (!closed && !paused)
+							update();
+					} catch (OpenALException e) {
+						Log.error("Error with OpenAL Streaming Player on this platform");
+						Log.error(e);
+					}
+					if (decoded < DECODE_BATCH) {
+						try {
+							Thread.sleep(STREAM_INTERVAL);
+						} catch (InterruptedException e) {
+							// closed
+						}
+					}
+				}
+			}
+		};
+		streamThread.setDaemon(true);
+		streamThread.setPriority(Thread.MAX_PRIORITY);
+		streamThread.start();
+	}
+
+	/**
+	 * Decode the next section of the stream into the ring buffer
+	 * 
+	 * @return True if a section was decoded, false if the ring buffer is full
+	 * or there is no more data
+	 */
+	private boolean decodeSection() {
+		synchronized (decodeLock) {
+			if (eof || audio == null || ring.free() < sectionSize) {
+				return false;
+			}
+
+			try {
+				if (seekPos >= 0) {
+					long position = seekPos;
+					seekPos = -1;
+					if (!seek(position)) {
+						eof = true;
+						return false;
+					}
+				}
+
+				int count = audio.read(buffer);
+				if (count == -1 && loop) {
+					musicLength = streamPos;
+					initStreams();
+					count = audio.read(buffer);
+				}
+				if (count == -1) {
+					eof = true;
+					return false;
+				}
+				streamPos += count;
+				ring.write(buffer, count);
+				return true;
+			} catch (IOException e) {
+				Log.error(e);
+				eof = true;
+				return false;
+			}
+		}
+	}
 	
 	/**
 	 * Poll the bufferNames - check if we need to fill the bufferNames with another
 	 * section. 
 	 * 
-	 * Most of the time this should be reasonably quick
+	 * This only copies data that has already been decoded, so it is reasonably quick
 	 */
 	public synchronized void update() {
 		if (done) {
@@ -242,67 +481,74 @@ public class OpenALStreamPlayer {
 			int bufferLength = AL10.alGetBufferi(bufferIndex, AL10.AL_SIZE);
 
 			playedPos += bufferLength;
-			lastUpdateTime = getTime();
 
 			if (musicLength > 0 && playedPos > musicLength)
 				playedPos -= musicLength;
 
-			if (stream(bufferIndex)) {
-				AL10.alSourceQueueBuffers(source, unqueued);
-			} else {
-				remainingBufferCount--;
-				if (remainingBufferCount == 0) {
-					done = true;
-				}
-			}
+			freeBuffers[freeBufferCount++] = bufferIndex;
 			processed--;
 		}
+
+		queueBuffers(false);
 		
-		int state = AL10.alGetSourcei(source, AL10.AL_SOURCE_STATE);
-		
-		if (state != AL10.AL_PLAYING) {
-			AL10.alSourcePlay(source);
+		if (!done && !paused && freeBufferCount < BUFFER_COUNT) {
+			int state = AL10.alGetSourcei(source, AL10.AL_SOURCE_STATE);
+			
+			if (state != AL10.AL_PLAYING) {
+				if (state == AL10.AL_STOPPED)
+					underruns.incrementAndGet();
+				AL10.alSourcePlay(source);
+			}
 		}
 	}
-	
+
 	/**
-	 * Stream some data from the audio stream to the buffer indicates by the ID
+	 * Fill the free buffers with decoded data from the ring buffer and queue them.
+	 * If the ring buffer has run dry and the source is about to, sections are
+	 * decoded directly on the calling thread.
 	 * 
-	 * @param bufferId The ID of the buffer to fill
-	 * @return True if another section was available
+	 * @param starting True if playback is about to start, in which case only the
+	 * sections already decoded are queued
 	 */
-	public synchronized boolean stream(int bufferId) {
-		try {
-			int count = audio.read(buffer);
-			if (count != -1) {
-				streamPos += count;
-
-				bufferData.clear();
-				bufferData.put(buffer,0,count);
-				bufferData.flip();
-
-				int format = audio.getChannels() > 1 ? AL10.AL_FORMAT_STEREO16 : AL10.AL_FORMAT_MONO16;
-				try {
-					AL10.alBufferData(bufferId, format, bufferData, audio.getRate());
-				} catch (OpenALException e) {
-					Log.error("Failed to loop buffer: "+bufferId+" "+format+" "+count+" "+audio.getRate(), e);
-					return false;
+	private void queueBuffers(boolean starting) {
+		boolean underrun = false;
+		while (freeBufferCount > 0) {
+			int available = ring.available();
+			if (available < sectionSize && !eof) {
+				if (starting)
+					break;
+				if (!underrun) {
+					decodeUnderruns.incrementAndGet();
+					underrun = true;
 				}
-			} else {
-				if (loop) {
-					musicLength = streamPos;
-					initStreams();
-					stream(bufferId);
-				} else {
+				// only decode here if the source is about to run dry
+				if (BUFFER_COUNT - freeBufferCount >= MIN_QUEUED_BUFFERS || (!decodeSection() && !eof))
+					break;
+				continue;
+			}
+			if (available < sampleSize) {
+				// nothing left to queue
+				if (freeBufferCount == BUFFER_COUNT)
 					done = true;
-					return false;
-				}
+				break;
 			}
-			
-			return true;
-		} catch (IOException e) {
-			Log.error(e);
-			return false;
+
+			int length = Math.min(available, sectionSize);
+			length -= length % sampleSize;
+			int bufferIndex = freeBuffers[freeBufferCount - 1];
+			bufferData.clear();
+			ring.read(bufferData, length);
+			bufferData.flip();
+			try {
+				AL10.alBufferData(bufferIndex, format, bufferData, sampleRate);
+			} catch (OpenALException e) {
+				Log.error("Failed to loop buffer: "+bufferIndex+" "+format+" "+length+" "+sampleRate, e);
+				break;
+			}
+			freeBufferCount--;
+			unqueued.clear();
+			unqueued.put(0, bufferIndex);
+			AL10.alSourceQueueBuffers(source, unqueued);
 		}
 	}
 
@@ -313,23 +559,14 @@ public class OpenALStreamPlayer {
 	 * @return True if the setting of the position was successful
 	 */
 	public synchronized boolean setPosition(float position) {
-		try {
-			long samplePos = (long) (position * sampleRate) * sampleSize;
-
-			if (streamPos > samplePos)
-				initStreams();
-
-			long skipped = audio.skip(samplePos - streamPos);
-			if (skipped >= 0)
-				streamPos += skipped;
-			else
-				Log.warn("OpenALStreamPlayer: setPosition: failed to skip.");
+		synchronized (decodeLock) {
+			try {
+				long samplePos = (long) (position * sampleRate) * sampleSize;
+				ring.clear();
+				eof = false;
+				seekPos = -1;
 
-			while (streamPos + buffer.length < samplePos) {
-				int count = audio.read(buffer);
-				if (count != -1) {
-					streamPos += count;
-				} else {
+				if (!seek(samplePos)) {
 					if (loop) {
 						initStreams();
 					} else {
@@ -337,15 +574,104 @@ public class OpenALStreamPlayer {
 					}
 					return false;
 				}
+
+				playedPos = streamPos;
+			} catch (IOException e) {
+				Log.error(e);
+				return false;
 			}
+		}
+
+		startPlayback(); 
+
+		return true;
+	}
+
+	/**
+	 * Seeks to a position in the music, starting playback immediately from data
+	 * that has already been decoded. The stream itself is only repositioned
+	 * to the end of that data later, on the streaming thread.
+	 * 
+	 * @param position Position in seconds.
+	 * @param pcm The data decoded from this stream starting at the position,
+	 * in the same format (at most a few seconds are used)
+	 * @return True if the setting of the position was successful
+	 */
+	public synchronized boolean setPosition(float position, byte[] pcm) {
+		synchronized (decodeLock) {
+			long samplePos = (long) (position * sampleRate) * sampleSize;
+			ring.clear();
+			eof = false;
+
+			int length = Math.min(pcm.length, ring.free());
+			length -= length % sampleSize;
+			ring.write(pcm, length);
+			seekPos = samplePos + length;
+			playedPos = samplePos;
+		}
 
-			playedPos = streamPos;
+		startPlayback();
+
+		return true;
+	}
 
-			startPlayback(); 
+	/**
+	 * Moves the stream to a position.
+	 * 
+	 * @param samplePos The position in bytes
+	 * @return True if successful, false if the position is beyond the end of the stream
+	 * @throws IOException Indicates a failure to read from the stream
+	 */
+	private boolean seek(long samplePos) throws IOException {
+		if (seekIndexed(samplePos))
+			return true;
+
+		if (streamPos > samplePos)
+			initStreams();
+
+		long skipped = audio.skip(samplePos - streamPos);
+		if (skipped >= 0)
+			streamPos += skipped;
+		else
+			Log.warn("OpenALStreamPlayer: setPosition: failed to skip.");
+
+		while (streamPos + buffer.length < samplePos) {
+			int count = audio.read(buffer);
+			if (count == -1)
+				return false;
+			streamPos += count;
+		}
+		return true;
+	}
+
+	/**
+	 * Seek directly to a position in the file, using the frame index of an MP3
+	 * file or the page granule positions of an OGG file, rather than decoding
+	 * everything up to it. Short forward seeks are left to the decoder.
+	 * 
+	 * @param samplePos The position in bytes
+	 * @return True if successful, false if the stream must be decoded up to the position instead
+	 */
+	private boolean seekIndexed(long samplePos) {
+		long distance = samplePos - streamPos;
+		if (url != null || (distance >= 0 && distance < INDEXED_SEEK_DISTANCE * sampleRate * sampleSize))
+			return false;
+		File file = new File(ref);
+		if (!file.isFile())
+			return false;
 
+		try {
+			AudioInputStream seeked;
+			if (ref.toLowerCase().endsWith(".mp3"))
+				seeked = Mp3InputStream.open(file, samplePos);
+			else
+				seeked = OggInputStream.open(file, samplePos);
+			audio.close();
+			audio = seeked;
+			streamPos = samplePos;
 			return true;
 		} catch (IOException e) {
-			Log.error(e);
+			Log.warn(String.format("Failed to seek to %d in '%s'.", samplePos, file.getAbsolutePath()), e);
 			return false;
 		}
 	}
@@ -354,68 +680,146 @@ public class OpenALStreamPlayer {
 	 * Starts the streaming.
 	 */
 	private void startPlayback() {
+		if (bufferNames == null)
+			return;
+
 		removeBuffers();
 		AL10.alSourcei(source, AL10.AL_LOOPING, AL10.AL_FALSE);
 		AL10.alSourcef(source, AL10.AL_PITCH, pitch);
 
-		remainingBufferCount = BUFFER_COUNT;
-
+		freeBufferCount = 0;
 		for (int i = 0; i < BUFFER_COUNT; i++) {
-			stream(bufferNames.get(i));
+			freeBuffers[freeBufferCount++] = bufferNames.get(i);
 		}
 
-		AL10.alSourceQueueBuffers(source, bufferNames);
+		// decode just enough to start, and leave the rest to the streaming thread
+		done = false;
+		while (ring.available() < START_BUFFERS * sectionSize && decodeSection());
+		queueBuffers(true);
+
 		AL10.alSourcePlay(source);
-		lastUpdateTime = getTime();
+		clockPos = -1;
 	}
 
 	/**
-	 * Return the current playing position in the sound
+	 * Return the current playing position in the sound.
+	 * <p>
+	 * The OpenAL source offset is sample-accurate, but only advances each time
+	 * the mixer runs. It is therefore used to correct a high-resolution timer
+	 * instead of being returned directly: small differences are corrected
+	 * gradually, and the position never moves backwards except after a seek,
+	 * a restart or a loop.
 	 * 
 	 * @return The current position in seconds.
 	 */
-	public float getPosition() {
-		float playedTime = ((float) playedPos / (float) sampleSize) / sampleRate;
-		float timePosition = playedTime + (getTime() - lastUpdateTime) / 1000f;
-//		 + AL10.alGetSourcef(source, AL11.AL_SEC_OFFSET);
-		return timePosition;
+	public synchronized float getPosition() {
+		long now = System.nanoTime();
+		int state = AL10.alGetSourcei(source, AL10.AL_SOURCE_STATE);
+		if (state != AL10.AL_PLAYING && clockPos >= 0) {
+			// paused, stalled or finished: hold the position
+			clockTime = now;
+			return (float) clockPos;
+		}
+
+		double sourcePos = getSourcePosition();
+		if (clockPos < 0 || state != AL10.AL_PLAYING) {
+			clockPos = sourcePos;
+			clockTime = now;
+			return (float) clockPos;
+		}
+
+		double elapsed = (now - clockTime) / 1e9;
+		double predicted = clockPos + elapsed * pitch;
+		double error = sourcePos - predicted;
+		if (error > MAX_CLOCK_LEAD || error < -MAX_CLOCK_LAG) {
+			// skipped ahead, or seeked/looped back
+			predicted = sourcePos;
+		} else {
+			clockJitter += (Math.abs(error) - clockJitter) * JITTER_WEIGHT;
+			predicted += error * Math.min(1.0, elapsed / CLOCK_CORRECTION_TIME);
+			predicted = Math.max(predicted, clockPos);
+		}
+		clockPos = predicted;
+		clockTime = now;
+		return (float) clockPos;
 	}
 
 	/**
-	 * Processes a track pause.
+	 * Get the position of the source from the OpenAL sample offset
+	 * 
+	 * @return The position in seconds
 	 */
-	public void pausing() {
-		offsetTime = getTime() - lastUpdateTime;
+	private double getSourcePosition() {
+		if (sampleRate == 0 || sampleSize == 0)
+			return 0;
+
+		long pos = playedPos + (long) AL10.alGetSourcei(source, AL11.AL_SAMPLE_OFFSET) * sampleSize;
+		if (musicLength > 0 && pos > musicLength)
+			pos -= musicLength;
+		return (double) pos / sampleSize / sampleRate;
 	}
 
 	/**
-	 * Processes a track resume.
+	 * Get the clock jitter, i.e. the average difference between the OpenAL source
+	 * offset and the smoothed position returned by {@link #getPosition()}
+	 * 
+	 * @return The jitter in seconds
 	 */
-	public void resuming() {
-		lastUpdateTime = getTime() - offsetTime;
+	public synchronized double getClockJitter() {
+		return clockJitter;
 	}
-	
+
+	/**
+	 * Processes a track pause.
+	 */
+	public synchronized void pausing() {
+		paused = true;
+	}
+
 	/**
-	 * http://wiki.lwjgl.org/index.php?title=LWJGL_Basics_4_%28Timing%29
-	 * Get the time in milliseconds
-	 *
-	 * @return The system time in milliseconds
+	 * Processes a track resume.
 	 */
-	public long getTime() {
-	    return (Sys.getTime() * 1000) / Sys.getTimerResolution();
+	public synchronized void resuming() {
+		paused = false;
+		clockTime = System.nanoTime();
 	}
 
 	/**
-	 * Closes the stream.
+	 * Closes the stream, stopping the streaming thread.
 	 */
 	public void close() {
-		if (audio != null) {
-			try {
-				audio.close();
-			} catch (IOException e) {
-				e.printStackTrace();
+		closed = true;
+		if (streamThread != null) {
+			if (streamThread != Thread.currentThread()) {
+				streamThread.interrupt();
+				try {
+					streamThread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			streamThread = null;
+		}
+
+		synchronized (decodeLock) {
+			if (audio != null) {
+				try {
+					audio.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				audio = null;
+			}
+		}
+
+		// release the buffers, so that streams can be replaced without destroying the context
+		synchronized (this) {
+			done = true;
+			if (bufferNames != null) {
+				removeBuffers();
+				AL10.alDeleteBuffers(bufferNames);
+				bufferNames = null;
 			}
 		}
 	}
 }
-
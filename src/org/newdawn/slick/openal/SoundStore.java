@@ -564,6 +564,15 @@ public class SoundStore {
 		}
 	}
 	
+	/**
+	 * Get the stream currently being played
+	 * 
+	 * @return The stream player, or null if no stream is being played
+	 */
+	public OpenALStreamPlayer getStream() {
+		return stream;
+	}
+
 	/**
 	 * Check if the supplied player is currently being polled by this
 	 * sound store.